@@ -0,0 +1,60 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.QuerydslApplication;
+import com.example.querydsl.seed.MemberSeedProperties;
+import com.example.querydsl.seed.MemberSeeder;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 벤치마크용 스프링 컨텍스트.
+ * 내장 H2 메모리 DB에 members건 만큼 데이터를 넣고 시작한다. (SQL 로그, 검색/count 캐시는 끈다)
+ * extraArgs로 "--spring.xxx=yyy" 형태의 설정을 덮어쓸 수 있다.
+ * */
+public final class BenchmarkContext {
+
+    public static final int TEAM_COUNT = 10;
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(long members, String... extraArgs) {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--spring.profiles.active=bench",
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                "--spring.jpa.properties.hibernate.generate_statistics=false",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--member.sql-log.enabled=false",
+                "--spring.devtools.restart.enabled=false",
+                "--member.search-cache.enabled=false",
+                "--member.count-cache.enabled=false"
+        ));
+        args.addAll(Arrays.asList(extraArgs)); //뒤에 오는 값이 우선
+
+        SpringApplication application = new SpringApplication(QuerydslApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        application.setBannerMode(Banner.Mode.OFF);
+        ConfigurableApplicationContext context = application.run(args.toArray(new String[0]));
+
+        MemberSeedProperties seed = new MemberSeedProperties();
+        seed.setCount(members);
+        seed.setTeamCount(TEAM_COUNT);
+        seed.setAgeDistribution(MemberSeedProperties.AgeDistribution.UNIFORM);
+        seed.setAgeMin(0);
+        seed.setAgeMax(99);
+        seed.setThreads(4);
+        context.getBean(MemberSeeder.class).seed(seed);
+        return context;
+    }
+}
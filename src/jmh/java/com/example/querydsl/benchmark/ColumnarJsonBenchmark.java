@@ -0,0 +1,90 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.dto.MemberColumns;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.repository.MemberJPARepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 전체 회원 export : List<MemberTeamDto>(객체 배열 JSON) vs MemberColumns(컬럼 배열 JSON)
+ *  - load* : 조회해서 결과 객체를 만드는 비용 (-prof gc 로 할당량)
+ *  - write* : 이미 만든 결과를 JSON으로 쓰는 비용
+ * 응답 크기는 setUp에서 한번 출력한다.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnarJsonBenchmark {
+
+    @Param({"10000", "50000"})
+    public long members;
+
+    ConfigurableApplicationContext context;
+    MemberJPARepository memberJPARepository;
+    ObjectMapper objectMapper;
+    MemberSearchCondition all;
+    List<MemberTeamDto> rows;
+    MemberColumns columns;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        context = BenchmarkContext.start(members);
+        memberJPARepository = context.getBean(MemberJPARepository.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        all = new MemberSearchCondition();
+
+        rows = memberJPARepository.searchByBuilder(all);
+        columns = memberJPARepository.searchColumns(all, 1000);
+        int rowBytes = objectMapper.writeValueAsBytes(rows).length;
+        int columnBytes = objectMapper.writeValueAsBytes(columns).length;
+        System.out.printf("%n[payload] members=%d rows=%,d bytes columnar=%,d bytes (%.1f%%)%n",
+                members, rowBytes, columnBytes, columnBytes * 100.0 / rowBytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> loadRows() {
+        return memberJPARepository.searchByBuilder(all);
+    }
+
+    @Benchmark
+    public MemberColumns loadColumns() {
+        return memberJPARepository.searchColumns(all, 1000);
+    }
+
+    @Benchmark
+    public byte[] writeRows() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(rows);
+    }
+
+    @Benchmark
+    public byte[] writeColumns() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(columns);
+    }
+}
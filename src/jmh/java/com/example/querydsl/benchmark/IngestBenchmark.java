@@ -0,0 +1,97 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.dto.MemberIngestResult;
+import com.example.querydsl.dto.MemberIngestRow;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.repository.MemberIngestRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 등록 rows/sec : em.persist 반복(batch_size flush/clear) vs JDBC batch 벌크 등록(MemberIngestRepository)
+ * 한 호출에 ROWS건을 한 트랜잭션으로 넣는다. 결과의 ops/s가 곧 rows/sec
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestBenchmark {
+
+    static final int ROWS = 5000;
+    static final int FLUSH_EVERY = 100; //hibernate.jdbc.batch_size
+
+    ConfigurableApplicationContext context;
+    MemberIngestRepository memberIngestRepository;
+    EntityManager em;
+    TransactionTemplate transactionTemplate;
+    List<MemberIngestRow> rows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(1000);
+        memberIngestRepository = context.getBean(MemberIngestRepository.class);
+        em = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new MemberIngestRow("member" + i, i % 100, "team" + (char) ('A' + i % BenchmarkContext.TEAM_COUNT)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public Integer persistLoop() {
+        return transactionTemplate.execute(status -> {
+            Map<String, Team> teams = new HashMap<>();
+            for (Team team : em.createQuery("select t from Team t", Team.class).getResultList()) {
+                teams.putIfAbsent(team.getName(), team);
+            }
+            for (int i = 0; i < rows.size(); i++) {
+                MemberIngestRow row = rows.get(i);
+                em.persist(new Member(row.getName(), row.getAge(), teams.get(row.getTeamName())));
+                if ((i + 1) % FLUSH_EVERY == 0) {
+                    em.flush();
+                    em.clear();
+                    teams.replaceAll((name, team) -> em.getReference(Team.class, team.getId()));
+                }
+            }
+            return rows.size();
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public MemberIngestResult jdbcIngest() {
+        return memberIngestRepository.saveAll(rows);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.dto.MemberCursor;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberSlice;
+import com.example.querydsl.dto.MemberSortKey;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.QMemberTeamDto;
+import com.example.querydsl.repository.MemberRepository;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+
+/**
+ * 페이지 깊이별 offset 페이징 vs keyset 페이징.
+ * offset은 앞의 행을 다 읽고 버리므로 깊을수록 느려지고, keyset은 인덱스에서 바로 시작 위치를 찾아서 거의 일정하다.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeysetPagingBenchmark {
+
+    static final int PAGE_SIZE = 10;
+
+    @Param({"20000"})
+    public long members;
+
+    @Param({"0", "100", "1000", "1999"})
+    public int page;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    JPAQueryFactory queryFactory;
+    TransactionTemplate readOnly;
+    MemberSearchCondition condition = new MemberSearchCondition();
+    long offset;
+    String after;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(members);
+        memberRepository = context.getBean(MemberRepository.class);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        offset = PAGE_SIZE * (long) page;
+        if (page > 0) {
+            //offset 바로 앞 행의 id로 커서를 만든다. (UI에서 이전 페이지를 넘겨 받은 상황과 같다)
+            Long lastId = readOnly.execute(status -> queryFactory.select(member.id)
+                    .from(member)
+                    .orderBy(member.id.asc())
+                    .offset(offset - 1)
+                    .limit(1)
+                    .fetchOne());
+            after = new MemberCursor(MemberSortKey.ID, null, lastId).encode();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> offsetPage() {
+        return readOnly.execute(status -> queryFactory
+                .select(new QMemberTeamDto(member.id.as("memberId"), member.name, member.age, team.id.as("teamId"), team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team(), team)
+                .orderBy(member.id.asc())
+                .offset(offset)
+                .limit(PAGE_SIZE)
+                .fetch());
+    }
+
+    @Benchmark
+    public MemberSlice keysetPage() {
+        return memberRepository.searchSlice(condition, MemberSortKey.ID, after, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.NameMatch;
+import com.example.querydsl.repository.MemberRepository;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.querydsl.entity.QMember.member;
+
+/**
+ * 부분 일치 검색 : like '%x%' 전체 스캔 vs 3-gram 인덱스. (앞부분 일치는 name 인덱스)
+ * 테이블이 커질때 like는 선형으로 느려지고 gram 인덱스는 검색어 posting 수만큼만 읽는다.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NameSearchBenchmark {
+
+    @Param({"10000", "100000"})
+    public long members;
+
+    @Param({"r1234"})
+    public String keyword;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    JPAQueryFactory queryFactory;
+    TransactionTemplate readOnly;
+    MemberSearchCondition contains;
+    MemberSearchCondition prefix;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(members);
+        memberRepository = context.getBean(MemberRepository.class);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        contains = new MemberSearchCondition();
+        contains.setName(keyword);
+        contains.setNameMatch(NameMatch.CONTAINS);
+
+        prefix = new MemberSearchCondition();
+        prefix.setName("member" + keyword.substring(1));
+        prefix.setNameMatch(NameMatch.PREFIX);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<String> likeContains() {
+        return readOnly.execute(status -> queryFactory
+                .select(member.name)
+                .from(member)
+                .where(member.name.contains(keyword))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> gramContains() {
+        return memberRepository.search(contains);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> indexedPrefix() {
+        return memberRepository.search(prefix);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.readmodel.MemberReadModel;
+import com.example.querydsl.repository.MemberRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 팀 + 나이대 검색 : DB(Querydsl) vs 메모리 읽기 모델(MemberReadModel)
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadModelBenchmark {
+
+    @Param({"10000", "100000"})
+    public long members;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    MemberReadModel readModel;
+    MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        context = BenchmarkContext.start(members, "--member.read-model.enabled=true");
+        memberRepository = context.getBean(MemberRepository.class);
+        readModel = context.getBean(MemberReadModel.class);
+
+        readModel.invalidate(); //seed 데이터를 다시 읽는다.
+        while (!readModel.isReady()) {
+            Thread.sleep(10);
+        }
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName("teamC");
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(29);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> database() {
+        return memberRepository.search(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> readModel() {
+        return readModel.search(condition);
+    }
+}
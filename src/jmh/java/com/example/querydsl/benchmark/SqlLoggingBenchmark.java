@@ -0,0 +1,81 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.repository.MemberJPARepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL 로그 설정별 처리량.
+ *  showSql : 기존 설정 (show-sql + format_sql + use_sql_comments + org.hibernate.SQL debug)
+ *  sampled : SqlLogListener (비동기, 모양별 1/100 샘플링)
+ *  off     : SQL 로그 없음
+ * 짧은 쿼리 위주여야 로그 비용이 드러나므로 결과가 적은 조건으로 조회한다.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class SqlLoggingBenchmark {
+
+    @Param({"showSql", "sampled", "off"})
+    public String logging;
+
+    ConfigurableApplicationContext context;
+    MemberJPARepository memberJPARepository;
+    MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(10_000, args());
+        memberJPARepository = context.getBean(MemberJPARepository.class);
+
+        condition = new MemberSearchCondition();
+        condition.setName("member100");
+    }
+
+    private String[] args() {
+        switch (logging) {
+            case "showSql":
+                return new String[]{
+                        "--spring.jpa.show-sql=true",
+                        "--spring.jpa.properties.hibernate.format_sql=true",
+                        "--spring.jpa.properties.hibernate.use_sql_comments=true",
+                        "--logging.level.org.hibernate.SQL=debug"};
+            case "sampled":
+                return new String[]{"--member.sql-log.enabled=true", "--member.sql-log.sample-every=100"};
+            default:
+                return new String[0];
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByBuilder() {
+        return memberJPARepository.searchByBuilder(condition);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.repository.MemberJPARepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * findAll_Querydsl 후 member.getTeam().getName() 접근 : Team 2차 캐시 없음 vs 있음.
+ * 캐시가 없으면 트랜잭션(영속성 컨텍스트)마다 팀 수만큼 select team 이 나간다.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TeamCacheBenchmark {
+
+    @Param({"1000"})
+    public long members;
+
+    @Param({"false", "true"})
+    public boolean teamCache;
+
+    ConfigurableApplicationContext context;
+    MemberJPARepository memberJPARepository;
+    TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(members, "--member.team-cache.enabled=" + teamCache);
+        memberJPARepository = context.getBean(MemberJPARepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void findAllThenTeam(Blackhole blackhole) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Member member : memberJPARepository.findAll_Querydsl()) {
+                blackhole.consume(member.getTeam().getName());
+            }
+        });
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.repository.MemberJPARepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * querydsl 동적 쿼리 vs 미리 만든 JPQL 템플릿.
+ * 조회 건수가 적은(=DB 시간이 작은) 조건으로 여러 스레드에서 돌려서, 요청당 쿼리 생성 CPU 차이가 드러나게 한다.
+ * CPU 사용량을 직접 보려면 -prof perfnorm (리눅스) 을 같이 준다.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class TemplateBenchmark {
+
+    @Param({"10000"})
+    public long members;
+
+    ConfigurableApplicationContext context;
+    MemberJPARepository memberJPARepository;
+    MemberSearchCondition[] conditions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(members);
+        memberJPARepository = context.getBean(MemberJPARepository.class);
+
+        //name 조건이 들어간 여러 모양
+        conditions = new MemberSearchCondition[4];
+        for (int i = 0; i < conditions.length; i++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setName("member" + (i * 97));
+            condition.setTeamName(i % 2 == 0 ? "team" + (char) ('A' + i) : null);
+            condition.setAgeGoe(0);
+            condition.setAgeLoe(i < 2 ? 99 : 50);
+            conditions[i] = condition;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> querydsl(Cursor cursor) {
+        return memberJPARepository.searchByWhereParam(conditions[cursor.next++ & 3]);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> template(Cursor cursor) {
+        return memberJPARepository.searchByTemplate(conditions[cursor.next++ & 3]);
+    }
+}
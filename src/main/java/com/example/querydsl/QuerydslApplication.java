@@ -1,13 +1,18 @@
 package com.example.querydsl;
 
+import com.example.querydsl.admission.QueryTimeouts;
+import com.example.querydsl.monitoring.SlowQueryRecorder;
+import com.example.querydsl.monitoring.SlowQueryRecordingQueryFactory;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import javax.persistence.EntityManager;
 
 @SpringBootApplication
+@EnableScheduling //TeamStats 주기적 재집계, MemberReadModel 주기적 다시 읽기
 public class QuerydslApplication {
 
     public static void main(String[] args) {
@@ -15,8 +20,8 @@ public class QuerydslApplication {
     }
 
     @Bean
-    JPAQueryFactory jpaQueryFactory(EntityManager em){
-        return new JPAQueryFactory(em);
+    JPAQueryFactory jpaQueryFactory(EntityManager em, SlowQueryRecorder slowQueryRecorder, QueryTimeouts queryTimeouts){
+        return new SlowQueryRecordingQueryFactory(em, slowQueryRecorder, queryTimeouts); //느린 쿼리 기록 + query timeout 힌트
     }
 
 }
@@ -0,0 +1,88 @@
+package com.example.querydsl.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 검색조건 모양별 bulkhead.
+ * 조건 없는 전체 조회 같은 무거운 모양이 몰려도 커넥션 풀을 다 차지하지 못하게, 모양마다 칸을 나눠서 제한한다.
+ *
+ *  1. 빈 자리가 있으면 바로 실행
+ *  2. 없으면 대기 줄(maxWaiting)에 서서 queueTimeout 까지 기다린다.
+ *  3. 대기 줄도 꽉 찼거나 시간 안에 자리가 안나면 MemberSearchRejectedException (503)
+ * 실행하는 동안은 그 모양의 queryTimeout을 쿼리 힌트로 건다.
+ *
+ * 전체 export(/v1/members/stream)는 조건과 상관없이 EXPORT 칸 하나를 같이 쓴다. (응답을 다 보낼 때까지 자리를 잡고 있으므로)
+ * */
+@Component
+public class MemberSearchBulkhead {
+
+    public static final String EXPORT = "export";
+
+    private final MemberSearchLimits limits;
+    private final MeterRegistry registry;
+    private final ConcurrentHashMap<String, Compartment> compartments = new ConcurrentHashMap<>();
+
+    public MemberSearchBulkhead(MemberSearchLimits limits, MeterRegistry registry) {
+        this.limits = limits;
+        this.registry = registry;
+    }
+
+    public <T> T execute(String shape, Supplier<T> search) {
+        Compartment compartment = compartments.computeIfAbsent(shape, key -> new Compartment(limits.forShape(key)));
+        acquire(shape, compartment);
+        try (QueryTimeouts.Scope ignored = QueryTimeouts.use(compartment.limit.getQueryTimeout())) {
+            return search.get();
+        } finally {
+            compartment.permits.release();
+        }
+    }
+
+    /** 지금 그 모양의 대기 줄에 서 있는 수 */
+    public int waiting(String shape) {
+        Compartment compartment = compartments.get(shape);
+        return compartment != null ? compartment.waiting.get() : 0;
+    }
+
+    private void acquire(String shape, Compartment compartment) {
+        if (compartment.permits.tryAcquire()) {
+            return;
+        }
+        if (compartment.waiting.incrementAndGet() > compartment.limit.getMaxWaiting()) {
+            compartment.waiting.decrementAndGet();
+            reject(shape, "full");
+        }
+        try {
+            if (!compartment.permits.tryAcquire(compartment.limit.getQueueTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                reject(shape, "timeout");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject(shape, "interrupted");
+        } finally {
+            compartment.waiting.decrementAndGet();
+        }
+    }
+
+    private void reject(String shape, String reason) {
+        registry.counter("member.search.rejected", "shape", shape, "reason", reason).increment();
+        throw new MemberSearchRejectedException("member search rejected : shape=" + shape + ", reason=" + reason);
+    }
+
+    private static class Compartment {
+        private final MemberSearchLimits.Limit limit;
+        private final Semaphore permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        Compartment(MemberSearchLimits.Limit limit) {
+            this.limit = limit;
+            this.permits = new Semaphore(limit.getMaxConcurrent(), true);
+        }
+    }
+}
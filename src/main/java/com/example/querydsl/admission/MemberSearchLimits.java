@@ -0,0 +1,46 @@
+package com.example.querydsl.admission;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 검색조건 모양(MemberSearchCondition.shape())별 동시 실행 / 대기 / 쿼리 시간 제한. (application.yml의 member.search.*)
+ * shapes에 없는 값은 defaults를 쓴다. 모양 이름에 +가 들어가면 yml 키를 "[teamName+ageGoe]" 처럼 감싼다.
+ * */
+@Data
+@Component
+@ConfigurationProperties(prefix = "member.search")
+public class MemberSearchLimits {
+
+    private Limit defaults = new Limit(20, 50, Duration.ofMillis(200), Duration.ofSeconds(10));
+    private Map<String, Limit> shapes = new HashMap<>();
+
+    public Limit forShape(String shape) {
+        Limit limit = shapes.get(shape);
+        if (limit == null) {
+            return defaults;
+        }
+        return new Limit(
+                limit.maxConcurrent != null ? limit.maxConcurrent : defaults.maxConcurrent,
+                limit.maxWaiting != null ? limit.maxWaiting : defaults.maxWaiting,
+                limit.queueTimeout != null ? limit.queueTimeout : defaults.queueTimeout,
+                limit.queryTimeout != null ? limit.queryTimeout : defaults.queryTimeout);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        private Integer maxConcurrent;  //동시에 실행할 수 있는 수
+        private Integer maxWaiting;     //실행 대기 줄 길이. 꽉 차면 바로 503
+        private Duration queueTimeout;  //대기 줄에서 기다리는 최대 시간. 넘으면 503
+        private Duration queryTimeout;  //실행되는 쿼리마다 거는 timeout 힌트
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.querydsl.admission;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 동시 실행 한도와 대기 줄이 모두 찼거나, 대기 시간 안에 차례가 오지 않았다.
+ * */
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "too many member searches")
+public class MemberSearchRejectedException extends RuntimeException {
+    public MemberSearchRejectedException(String message) {
+        super(message);
+    }
+}
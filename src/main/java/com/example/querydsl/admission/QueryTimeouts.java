@@ -0,0 +1,45 @@
+package com.example.querydsl.admission;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 쿼리마다 거는 timeout(javax.persistence.query.timeout 힌트, ms).
+ * MemberSearchBulkhead가 실행하는 동안은 그 모양의 값, 나머지는 member.search.defaults.query-timeout.
+ * */
+@Component
+public class QueryTimeouts {
+
+    public static final String HINT = "javax.persistence.query.timeout";
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final MemberSearchLimits limits;
+
+    public QueryTimeouts(MemberSearchLimits limits) {
+        this.limits = limits;
+    }
+
+    public static Scope use(Duration timeout) {
+        Integer outer = CURRENT.get();
+        CURRENT.set((int) timeout.toMillis());
+        return () -> {
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(outer);
+            }
+        };
+    }
+
+    public int currentMillis() {
+        Integer current = CURRENT.get();
+        return current != null ? current : (int) limits.getDefaults().getQueryTimeout().toMillis();
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
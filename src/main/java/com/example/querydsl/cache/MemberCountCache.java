@@ -0,0 +1,71 @@
+package com.example.querydsl.cache;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.sql.DataVersion;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 페이징 total count 캐시.
+ * 같은 조건으로 페이지만 넘기는 경우가 대부분이라, count는 조건별로 잠깐 들고 있어도 된다.
+ * 키에 members/team 데이터 버전을 넣어서 쓰기가 일어나면 새로 센다.
+ * (total은 화면에 "약 N건" 정도로만 쓰이므로 MemberSearchCache처럼 미커밋 트랜잭션까지 따지지는 않는다)
+ * */
+@Component
+public class MemberCountCache {
+
+    private final DataVersion dataVersion;
+    private final boolean enabled;
+    private final BoundedCache<Key, Long> totals;
+
+    public MemberCountCache(DataVersion dataVersion,
+                            @Value("${member.count-cache.enabled:true}") boolean enabled,
+                            @Value("${member.count-cache.max-size:1000}") int maxSize,
+                            @Value("${member.count-cache.ttl:30s}") Duration ttl) {
+        this.dataVersion = dataVersion;
+        this.enabled = enabled;
+        this.totals = new BoundedCache<>(maxSize, ttl.toMillis());
+    }
+
+    public long getTotal(MemberSearchCondition condition, Supplier<Long> countQuery) {
+        if (!enabled) {
+            return countQuery.get();
+        }
+        long version = dataVersion.version(DataVersion.MEMBERS) + dataVersion.version(DataVersion.TEAM);
+        return totals.get(new Key(condition.normalize(), version), countQuery);
+    }
+
+    /**
+     * 캐시에 있을 때만 꺼낸다. 없으면 null
+     * */
+    public Long getTotalIfPresent(MemberSearchCondition condition) {
+        if (!enabled) {
+            return null;
+        }
+        long version = dataVersion.version(DataVersion.MEMBERS) + dataVersion.version(DataVersion.TEAM);
+        return totals.getIfPresent(new Key(condition.normalize(), version));
+    }
+
+    public void clear() {
+        totals.clear();
+    }
+
+    public BoundedCache<?, ?> getTotals() {
+        return totals;
+    }
+
+    @EqualsAndHashCode
+    private static final class Key {
+        private final MemberSearchCondition condition;
+        private final long version;
+
+        private Key(MemberSearchCondition condition, long version) {
+            this.condition = condition;
+            this.version = version;
+        }
+    }
+}
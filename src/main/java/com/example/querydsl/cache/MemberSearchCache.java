@@ -0,0 +1,107 @@
+package com.example.querydsl.cache;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.sql.DataVersion;
+import com.example.querydsl.sql.TransactionChanges;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 검색 결과 캐시.
+ * 키 = (쿼리 이름, 정규화된 검색조건, members/team 데이터 버전)
+ * 쓰기가 일어나면 데이터 버전이 바뀌므로 예전 키로는 더 이상 찾을 수 없다. (예전 엔트리는 LRU/TTL로 밀려난다)
+ *
+ * 현재 트랜잭션에 아직 커밋 안된 변경이 있으면 캐시를 거치지 않는다.
+ * (내 변경이 반영된 결과를 남에게 캐시로 주거나, 내 변경이 빠진 결과를 캐시에서 받으면 안되므로)
+ *
+ * MemberTeamDto는 setter가 있는 객체라서 저장할때와 꺼낼때 모두 복사한다. (받은 쪽이 고쳐도 캐시는 그대로)
+ *
+ * replica 라우팅(app.datasource.routing)이 켜져 있으면 커밋 직후의 읽기는 아직 복제되지 않은 예전 데이터일 수 있다.
+ * 그 결과가 커밋 후 버전으로 TTL 동안 캐시되지 않도록, 마지막 쓰기 후 replica-lag(기본값 read-your-writes-window)이
+ * 지나기 전에는 조회만 하고 저장하지 않는다. 실제 복제 지연이 이보다 길면 그만큼은 예전 결과가 캐시될 수 있다.
+ * */
+@Component
+public class MemberSearchCache {
+
+    private final TransactionChanges transactionChanges;
+    private final DataVersion dataVersion;
+    private final boolean enabled;
+    private final long replicaLagMillis;
+    private final BoundedCache<Key, List<MemberTeamDto>> results;
+
+    public MemberSearchCache(TransactionChanges transactionChanges, DataVersion dataVersion,
+                             @Value("${member.search-cache.enabled:true}") boolean enabled,
+                             @Value("${member.search-cache.max-size:500}") int maxSize,
+                             @Value("${member.search-cache.ttl:60s}") Duration ttl,
+                             @Value("${member.search-cache.replica-lag:${app.datasource.routing.read-your-writes-window:0s}}") Duration replicaLag) {
+        this.transactionChanges = transactionChanges;
+        this.dataVersion = dataVersion;
+        this.enabled = enabled;
+        this.replicaLagMillis = replicaLag.toMillis();
+        this.results = new BoundedCache<>(maxSize, ttl.toMillis());
+    }
+
+    public List<MemberTeamDto> get(String queryName, MemberSearchCondition condition, Supplier<List<MemberTeamDto>> query) {
+        if (!enabled || transactionChanges.hasPendingChanges()) {
+            return query.get();
+        }
+        long version = currentVersion();
+        Key key = new Key(queryName, condition.normalize(), version);
+        List<MemberTeamDto> cached = results.getIfPresent(key);
+        if (cached != null) {
+            return copyOf(cached);
+        }
+
+        boolean replicated = System.currentTimeMillis() - lastModified() >= replicaLagMillis;
+        List<MemberTeamDto> loaded = Collections.unmodifiableList(query.get());
+        if (replicated && currentVersion() == version) { //조회하는 동안 쓰기가 있었으면 저장하지 않는다.
+            results.put(key, copyOf(loaded));
+        }
+        return loaded;
+    }
+
+    public void clear() {
+        results.clear();
+    }
+
+    public BoundedCache<?, ?> getResults() {
+        return results;
+    }
+
+    private long lastModified() {
+        return Math.max(dataVersion.lastModified(DataVersion.MEMBERS), dataVersion.lastModified(DataVersion.TEAM));
+    }
+
+    private static List<MemberTeamDto> copyOf(List<MemberTeamDto> rows) {
+        List<MemberTeamDto> copy = new ArrayList<>(rows.size());
+        for (MemberTeamDto row : rows) {
+            copy.add(new MemberTeamDto(row.getMemberId(), row.getName(), row.getAge(), row.getTeamId(), row.getTeamName()));
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    private long currentVersion() {
+        return dataVersion.version(DataVersion.MEMBERS) + dataVersion.version(DataVersion.TEAM);
+    }
+
+    @EqualsAndHashCode
+    static final class Key {
+        private final String queryName;
+        private final MemberSearchCondition condition;
+        private final long version;
+
+        Key(String queryName, MemberSearchCondition condition, long version) {
+            this.queryName = queryName;
+            this.condition = condition;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * app.datasource.routing.enabled=true 일때만 켜진다.
+ * primary는 기존 spring.datasource.* 설정을 그대로 쓰고, replica는 app.datasource.routing.replicas 에 적는다.
+ *
+ * app:
+ *   datasource:
+ *     routing:
+ *       enabled: true
+ *       read-your-writes-window: 2s
+ *       replicas:
+ *         - url: jdbc:h2:tcp://replica1/~/test3
+ *           username: sa
+ *           password: 1
+ * */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.routing", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("app.datasource.routing")
+    public RoutingProperties routingProperties() {
+        return new RoutingProperties();
+    }
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties primaryProperties, RoutingProperties routingProperties) {
+        Map<Object, Object> targets = new HashMap<>();
+        DataSource primary = primaryProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        targets.put(ReplicaRoutingDataSource.PRIMARY, primary);
+
+        List<String> replicaKeys = new ArrayList<>();
+        for (int i = 0; i < routingProperties.getReplicas().size(); i++) {
+            Replica replica = routingProperties.getReplicas().get(i);
+            String key = "replica-" + i;
+            replicaKeys.add(key);
+            targets.put(key, DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .build());
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(replicaKeys);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public PrimaryPin primaryPin(@Value("${app.datasource.routing.read-your-writes-window:0s}") Duration window) {
+        return new PrimaryPin(window);
+    }
+
+    /** 트랜잭션보다 바깥에서 호출자의 고정을 읽고, 요청이 끝나면 지운다. */
+    @Bean
+    public FilterRegistrationBean<PrimaryPinFilter> primaryPinFilter(PrimaryPin primaryPin) {
+        FilterRegistrationBean<PrimaryPinFilter> registration = new FilterRegistrationBean<>(new PrimaryPinFilter(primaryPin));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Data
+    public static class RoutingProperties {
+        private boolean enabled;
+        private Duration readYourWritesWindow = Duration.ZERO;
+        private List<Replica> replicas = new ArrayList<>();
+    }
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.querydsl.config;
+
+import com.example.querydsl.readmodel.MemberReadModel;
+import com.example.querydsl.repository.MemberNameGramListener;
+import com.example.querydsl.repository.MemberTombstoneListener;
+import com.example.querydsl.sql.EntityWriteTracker;
+import com.example.querydsl.sql.QueryCounter;
+import com.example.querydsl.sql.SqlStatementInspector;
+import com.example.querydsl.stats.TeamStats;
+import org.hibernate.boot.Metadata;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+public class HibernateConfig {
+
+    /**
+     * 설정 파일에 클래스 이름으로 넣으면 hibernate가 직접 생성하므로, 스프링 빈 인스턴스를 넘겨준다.
+     * */
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(SqlStatementInspector sqlStatementInspector) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementInspector);
+    }
+
+    /**
+     * 엔티티 이벤트 리스너 등록. (JPA @PostLoad 등은 엔티티마다 붙여야 해서 hibernate 이벤트로 한번에 받는다)
+     * 로딩 : QueryCounter
+     * insert, update, delete : MemberNameGramListener(이름 gram 인덱스, flush 끝에 모아서 보낸다), MemberTombstoneListener(삭제 기록),
+     *   MemberReadModel / TeamStats(켜져 있으면)
+     *   EntityWriteTracker는 Pre에서 시작하고 다른 리스너가 다 끝난 뒤 Post에서 끝낸다.
+     * */
+    @Bean
+    public HibernatePropertiesCustomizer eventListenerCustomizer(QueryCounter queryCounter, MemberNameGramListener memberNameGramListener,
+                                                                 MemberTombstoneListener memberTombstoneListener,
+                                                                 EntityWriteTracker entityWriteTracker,
+                                                                 ObjectProvider<MemberReadModel> memberReadModel,
+                                                                 ObjectProvider<TeamStats> teamStats) {
+        Integrator integrator = new Integrator() {
+            @Override
+            public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+                EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+                registry.appendListeners(EventType.POST_LOAD, queryCounter);
+                registry.appendListeners(EventType.POST_INSERT, memberNameGramListener);
+                registry.appendListeners(EventType.POST_UPDATE, memberNameGramListener);
+                registry.appendListeners(EventType.POST_DELETE, memberNameGramListener);
+                registry.appendListeners(EventType.FLUSH, memberNameGramListener);
+                registry.appendListeners(EventType.AUTO_FLUSH, memberNameGramListener);
+                registry.appendListeners(EventType.POST_DELETE, memberTombstoneListener);
+                memberReadModel.ifAvailable(readModel -> {
+                    registry.appendListeners(EventType.POST_INSERT, readModel);
+                    registry.appendListeners(EventType.POST_UPDATE, readModel);
+                    registry.appendListeners(EventType.POST_DELETE, readModel);
+                });
+                teamStats.ifAvailable(stats -> {
+                    registry.appendListeners(EventType.POST_INSERT, stats);
+                    registry.appendListeners(EventType.POST_UPDATE, stats);
+                    registry.appendListeners(EventType.POST_DELETE, stats);
+                });
+                registry.appendListeners(EventType.PRE_INSERT, entityWriteTracker);
+                registry.appendListeners(EventType.PRE_UPDATE, entityWriteTracker);
+                registry.appendListeners(EventType.PRE_DELETE, entityWriteTracker);
+                registry.appendListeners(EventType.POST_INSERT, entityWriteTracker);
+                registry.appendListeners(EventType.POST_UPDATE, entityWriteTracker);
+                registry.appendListeners(EventType.POST_DELETE, entityWriteTracker);
+            }
+
+            @Override
+            public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+            }
+        };
+        return properties -> properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(integrator));
+    }
+}
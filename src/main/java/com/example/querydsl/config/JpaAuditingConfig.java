@@ -0,0 +1,12 @@
+package com.example.querydsl.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+
+/**
+ * BaseTimeEntity의 createdDate / lastModifiedDate를 채운다. (변경 피드가 lastModifiedDate를 커서로 쓴다)
+ * */
+@Configuration
+@EnableJpaAuditing
+public class JpaAuditingConfig {
+}
@@ -0,0 +1,44 @@
+package com.example.querydsl.config;
+
+import com.example.querydsl.cache.BoundedCache;
+import com.example.querydsl.cache.MemberCountCache;
+import com.example.querydsl.cache.MemberSearchCache;
+import com.example.querydsl.repository.MemberSearchTemplates;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * 캐시 / 템플릿 적중률. (member.cache.requests{cache=search,result=hit} 등)
+     * */
+    @Bean
+    public MeterBinder memberCacheMetrics(MemberSearchCache memberSearchCache, MemberCountCache memberCountCache,
+                                          MemberSearchTemplates memberSearchTemplates) {
+        return registry -> {
+            bindCache(registry, "search", memberSearchCache.getResults());
+            bindCache(registry, "count", memberCountCache.getTotals());
+
+            FunctionCounter.builder("member.cache.requests", memberSearchTemplates, MemberSearchTemplates::hitCount)
+                    .tags("cache", "template", "result", "hit").register(registry);
+            FunctionCounter.builder("member.cache.requests", memberSearchTemplates, MemberSearchTemplates::missCount)
+                    .tags("cache", "template", "result", "miss").register(registry);
+        };
+    }
+
+    private static void bindCache(MeterRegistry registry, String name, BoundedCache<?, ?> cache) {
+        FunctionCounter.builder("member.cache.requests", cache, BoundedCache::hitCount)
+                .tags("cache", name, "result", "hit").register(registry);
+        FunctionCounter.builder("member.cache.requests", cache, BoundedCache::missCount)
+                .tags("cache", name, "result", "miss").register(registry);
+        FunctionCounter.builder("member.cache.evictions", cache, BoundedCache::evictionCount)
+                .tags("cache", name).register(registry);
+        Gauge.builder("member.cache.size", cache, BoundedCache::size)
+                .tags("cache", name).register(registry);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.querydsl.config;
+
+import com.example.querydsl.sql.SqlStatementListener;
+import com.example.querydsl.sql.SqlStatements;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+
+/**
+ * read-your-writes : 내가 방금 쓴 데이터를 replica 복제 지연 때문에 못 읽는 일이 없도록 읽기를 primary로 고정한다.
+ *
+ * 1. 명시적으로 : try (PrimaryPin.Scope ignored = PrimaryPin.pin()) { ... 이 안의 읽기는 primary }
+ * 2. 자동으로   : 쓰기 트랜잭션이 커밋되면 window 동안 그 호출자의 읽기를 primary로 보낸다.
+ *
+ * 자동 고정은 스레드가 아니라 호출자에 붙는다. 서블릿 워커 스레드는 요청마다 다른 호출자가 쓰기 때문이다.
+ *  - HTTP 요청 안의 커밋 : 응답에 고정 만료시각을 쿠키(primary-pin)와 헤더(X-Primary-Pin)로 내려준다.
+ *    다음 요청이 쿠키나 같은 헤더를 보내면 PrimaryPinFilter가 그 요청 동안만 고정하고, 요청이 끝나면 지운다.
+ *    같은 요청의 나머지 읽기도 바로 primary로 간다.
+ *  - 요청 밖(배치 등)의 커밋 : 같은 스레드에서 이어지는 읽기를 window 동안 primary로. 끝나면 unpin()
+ *
+ * 만료시각은 클라이언트가 보내는 값이라 window보다 먼 값은 now + window로 자른다. (조작해도 primary로 더 갈 뿐)
+ * */
+public class PrimaryPin implements SqlStatementListener {
+
+    public static final String COOKIE = "primary-pin";
+    public static final String HEADER = "X-Primary-Pin";
+
+    private static final ThreadLocal<Integer> SCOPES = ThreadLocal.withInitial(() -> 0);
+    private static final ThreadLocal<RequestPin> REQUEST = new ThreadLocal<>();
+    private static final ThreadLocal<Long> THREAD_PINNED_UNTIL = new ThreadLocal<>();
+
+    private final long windowMillis;
+
+    public PrimaryPin(Duration window) {
+        this.windowMillis = window.toMillis();
+    }
+
+    public static Scope pin() {
+        SCOPES.set(SCOPES.get() + 1);
+        return () -> SCOPES.set(SCOPES.get() - 1);
+    }
+
+    public static boolean isPinned() {
+        if (SCOPES.get() > 0) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        RequestPin request = REQUEST.get();
+        if (request != null) {
+            return request.pinnedUntil > now;
+        }
+        Long until = THREAD_PINNED_UNTIL.get();
+        if (until == null) {
+            return false;
+        }
+        if (until > now) {
+            return true;
+        }
+        THREAD_PINNED_UNTIL.remove();
+        return false;
+    }
+
+    /** 쓰기 후 자동으로 걸린 고정을 푼다. */
+    public static void unpin() {
+        THREAD_PINNED_UNTIL.remove();
+        RequestPin request = REQUEST.get();
+        if (request != null) {
+            request.pinnedUntil = 0;
+        }
+    }
+
+    /**
+     * PrimaryPinFilter가 요청 시작에 부른다. pinnedUntil은 클라이언트가 보낸 만료시각(epoch millis, 없으면 0)
+     * */
+    void beginRequest(HttpServletResponse response, long pinnedUntil) {
+        long now = System.currentTimeMillis();
+        REQUEST.set(new RequestPin(response, Math.min(pinnedUntil, now + windowMillis)));
+    }
+
+    /** 요청이 끝나면 워커 스레드에 아무것도 남기지 않는다. */
+    static void endRequest() {
+        REQUEST.remove();
+        THREAD_PINNED_UNTIL.remove();
+    }
+
+    @Override
+    public void onStatement(String sql) {
+        if (windowMillis <= 0
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || SqlStatements.writeTarget(sql) == null) {
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PinAfterCommit) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new PinAfterCommit());
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final class RequestPin {
+        private final HttpServletResponse response;
+        private long pinnedUntil;
+
+        private RequestPin(HttpServletResponse response, long pinnedUntil) {
+            this.response = response;
+            this.pinnedUntil = pinnedUntil;
+        }
+    }
+
+    private class PinAfterCommit implements TransactionSynchronization {
+        @Override
+        public void afterCommit() {
+            long until = System.currentTimeMillis() + windowMillis;
+            RequestPin request = REQUEST.get();
+            if (request == null) {
+                THREAD_PINNED_UNTIL.set(until);
+                return;
+            }
+            request.pinnedUntil = until;
+            if (request.response.isCommitted()) {
+                return; //본문을 이미 보냈으면 이번 요청만 고정된다.
+            }
+            Cookie cookie = new Cookie(COOKIE, String.valueOf(until));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (windowMillis + 999) / 1000));
+            request.response.addCookie(cookie);
+            request.response.setHeader(HEADER, String.valueOf(until));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.querydsl.config;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 요청이 보낸 고정 만료시각(쿠키 primary-pin 또는 헤더 X-Primary-Pin)으로 이 요청의 읽기를 primary로 고정하고,
+ * 요청이 끝나면 워커 스레드의 고정 상태를 지운다. (PrimaryPin)
+ * */
+public class PrimaryPinFilter extends OncePerRequestFilter {
+
+    private final PrimaryPin primaryPin;
+
+    public PrimaryPinFilter(PrimaryPin primaryPin) {
+        this.primaryPin = primaryPin;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        primaryPin.beginRequest(response, pinnedUntil(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            PrimaryPin.endRequest();
+        }
+    }
+
+    private static long pinnedUntil(HttpServletRequest request) {
+        String value = request.getHeader(PrimaryPin.HEADER);
+        if (value == null && request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (PrimaryPin.COOKIE.equals(cookie.getName())) {
+                    value = cookie.getValue();
+                }
+            }
+        }
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0; //잘못된 값은 고정 없음
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.querydsl.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Transactional(readOnly = true) 안에서 얻는 커넥션은 replica로, 나머지는 primary로 보낸다.
+ * replica가 여러개면 돌아가면서(round robin) 나눠준다.
+ *
+ * 커넥션을 얻는 시점에 readOnly 여부가 정해져 있어야 하므로 LazyConnectionDataSourceProxy로 감싸서 써야 한다.
+ * (트랜잭션 매니저는 트랜잭션 시작할때 커넥션부터 얻고, readOnly 플래그는 그 뒤에 세팅한다)
+ * */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final List<String> replicaKeys;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(List<String> replicaKeys) {
+        this.replicaKeys = replicaKeys;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicaKeys.isEmpty()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || PrimaryPin.isPinned()) {
+            return PRIMARY;
+        }
+        return replicaKeys.get(Math.floorMod(sequence.getAndIncrement(), replicaKeys.size()));
+    }
+}
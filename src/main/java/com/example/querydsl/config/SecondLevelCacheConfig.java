@@ -0,0 +1,113 @@
+package com.example.querydsl.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Team 2차 캐시 + 쿼리 캐시 (hibernate-jcache + ehcache, 프로세스 내 힙 캐시)
+ *
+ * team          : Team 엔티티 (member.getTeam() 지연 로딩, em.find)
+ * team-by-name  : TeamRepository.findByName 쿼리 결과 (id 목록)
+ *
+ * 주의) select 절에서 team.name 같은 컬럼을 조인으로 가져오는 projection 쿼리는 SQL이 그대로 나가므로 2차 캐시와 무관하다.
+ * member.team-cache.enabled=false 면 이 설정이 빠지고 2차 캐시 없이 동작한다.
+ * */
+@Configuration
+@ConditionalOnProperty(prefix = "member.team-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SecondLevelCacheConfig {
+
+    public static final String TEAM_REGION = "team";
+    public static final String TEAM_BY_NAME_REGION = "team-by-name";
+
+    /**
+     * 영역마다 크기/만료를 코드로 정한다. (ehcache.xml 대신 설정값으로 조절)
+     * 컨텍스트마다 다른 URI를 써서 테스트처럼 컨텍스트가 여러개 떠도 캐시 매니저를 공유하지 않는다.
+     * */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${member.team-cache.max-entries:1000}") long maxEntries,
+                                              @Value("${member.team-cache.ttl:10m}") Duration ttl,
+                                              @Value("${member.team-cache.query-max-entries:1000}") long queryMaxEntries,
+                                              @Value("${member.team-cache.query-ttl:1m}") Duration queryTtl) {
+        org.ehcache.config.Configuration configuration = ConfigurationBuilder.newConfigurationBuilder()
+                .withCache(TEAM_REGION, region(maxEntries, ttl))
+                .withCache(TEAM_BY_NAME_REGION, region(queryMaxEntries, queryTtl))
+                .withCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(queryMaxEntries, queryTtl))
+                //테이블별 마지막 변경 시각. 만료되면 오래된 쿼리 캐시를 최신으로 착각할 수 있으므로 만료 없음
+                .withCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(10_000, null))
+                .build();
+
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        return provider.getCacheManager(URI.create("urn:querydsl:hibernate:" + UUID.randomUUID()), configuration);
+    }
+
+    private static CacheConfiguration<Object, Object> region(long maxEntries, Duration ttl) {
+        CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries));
+        if (ttl != null) {
+            builder = builder.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl));
+        }
+        return builder.build();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+        };
+    }
+
+    /**
+     * 영역별 적중률. (member.cache.requests{cache=l2-team,result=hit} 등)
+     * hibernate 통계(generate_statistics)가 켜져 있어야 값이 쌓인다.
+     * */
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            bindRegion(registry, "l2-" + TEAM_REGION, statistics, s -> s.getDomainDataRegionStatistics(TEAM_REGION));
+            bindRegion(registry, "l2-" + TEAM_BY_NAME_REGION, statistics, s -> s.getQueryRegionStatistics(TEAM_BY_NAME_REGION));
+        };
+    }
+
+    private static void bindRegion(MeterRegistry registry, String name, Statistics statistics,
+                                   Function<Statistics, CacheRegionStatistics> region) {
+        FunctionCounter.builder("member.cache.requests", statistics, s -> count(region.apply(s), CacheRegionStatistics::getHitCount))
+                .tags("cache", name, "result", "hit").register(registry);
+        FunctionCounter.builder("member.cache.requests", statistics, s -> count(region.apply(s), CacheRegionStatistics::getMissCount))
+                .tags("cache", name, "result", "miss").register(registry);
+    }
+
+    private static double count(CacheRegionStatistics region, ToLongFunction<CacheRegionStatistics> counter) {
+        return region == null ? 0 : counter.applyAsLong(region);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.querydsl.config;
+
+import com.example.querydsl.monitoring.SlowQueryRecorder;
+import com.example.querydsl.monitoring.SlowQueryRecordingDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class SlowQueryConfig {
+
+    /**
+     * DataSource 빈(Hikari 또는 DataSourceRoutingConfig의 라우팅 DataSource)을 느린 쿼리 기록용으로 감싼다.
+     * BeanPostProcessor는 일찍 만들어지므로 static + ObjectProvider로 recorder를 늦게 가져온다.
+     * */
+    @Bean
+    public static BeanPostProcessor slowQueryDataSourcePostProcessor(ObjectProvider<SlowQueryRecorder> recorder) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof SlowQueryRecordingDataSource)) {
+                    return new SlowQueryRecordingDataSource((DataSource) bean, recorder.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
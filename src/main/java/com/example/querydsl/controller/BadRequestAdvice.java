@@ -0,0 +1,22 @@
+package com.example.querydsl.controller;
+
+import com.example.querydsl.dto.InvalidSearchRequestException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 요청 값이 잘못된 경우(커서, fields, size 등)는 InvalidSearchRequestException으로 던지고 여기서 400으로 바꾼다.
+ * 다른 IllegalArgumentException은 서버 결함일 수 있으므로 잡지 않는다. (500, 메시지 노출 안함)
+ * 응답 본문은 스프링 부트 기본 에러 응답. (server.error.include-message 설정에 따라 메시지 포함)
+ * */
+@RestControllerAdvice(basePackageClasses = BadRequestAdvice.class)
+public class BadRequestAdvice {
+
+    @ExceptionHandler(InvalidSearchRequestException.class)
+    public void badRequest(InvalidSearchRequestException e, HttpServletResponse response) throws IOException {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+    }
+}
@@ -1,48 +1,27 @@
 package com.example.querydsl.controller;
 
-import com.example.querydsl.entity.Member;
-import com.example.querydsl.entity.Team;
-import lombok.AllArgsConstructor;
-import lombok.NoArgsConstructor;
+import com.example.querydsl.seed.MemberSeedProperties;
+import com.example.querydsl.seed.MemberSeeder;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
 
 @Profile("local")
 @Component
 @RequiredArgsConstructor
 public class InitMember {
 
-    private final InitMemberService initMemberService;
-    @PostConstruct
-    public void init(){
-        initMemberService.init();
-    }
+    private final MemberSeeder memberSeeder;
+    private final MemberSeedProperties memberSeedProperties;
 
     /**
-     * 이렇게 Inner 클래스 따로 넣어서 초기화할 필요가 있나? 라고 생각했는데,
-     * postConstruct랑 Transactional을 같이 넣을 수 없다. spring lifeCycle때문에.
+     * 데이터 크기는 application.yml의 init.member.* 로 조절한다.
+     * (부하테스트용으로 init.member.count=10000000, team-count=5000, threads=8 처럼)
      * */
-    @Component
-    static class InitMemberService{
-        @PersistenceContext private EntityManager em;
-
-        @Transactional
-        public void init(){
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
-
-            for(int i = 0 ; i < 100 ; i++){
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member"+i, i, selectedTeam));
-            }
-        }
+    @PostConstruct
+    public void init(){
+        memberSeeder.seed(memberSeedProperties);
     }
 }
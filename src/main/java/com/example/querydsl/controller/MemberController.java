@@ -1,22 +1,176 @@
 package com.example.querydsl.controller;
 
+import com.example.querydsl.admission.MemberSearchBulkhead;
+import com.example.querydsl.dto.MemberChanges;
+import com.example.querydsl.dto.MemberColumns;
+import com.example.querydsl.dto.MemberField;
+import com.example.querydsl.dto.MemberIngestResult;
+import com.example.querydsl.dto.MemberIngestRow;
 import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberSlice;
+import com.example.querydsl.dto.MemberSortKey;
 import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.readmodel.MemberSearchSwitch;
+import com.example.querydsl.repository.MemberChangeFeed;
+import com.example.querydsl.repository.MemberIngestRepository;
 import com.example.querydsl.repository.MemberJPARepository;
+import com.example.querydsl.repository.MemberRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
     private final MemberJPARepository memberJPARepository;
+    private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+    private final MemberSearchBulkhead memberSearchBulkhead;
+    private final MemberSearchSwitch memberSearchSwitch;
+    private final MemberSearchETags memberSearchETags;
+    private final MemberChangeFeed memberChangeFeed;
+    private final MemberIngestRepository memberIngestRepository;
 
+    @Value("${member.stream.fetch-size:1000}")
+    private int streamFetchSize;
+    @Value("${member.ingest.max-rows:10000}")
+    private int ingestMaxRows;
+
+    /**
+     * 조건이 비면 전체 row를 가져오므로, 모양별 동시 실행 수를 제한한다. 넘치면 503 (MemberSearchBulkhead)
+     * 읽기 모델(member.read-model.enabled)이 준비돼 있으면 DB 대신 메모리에서 찾는다.
+     * 데이터가 안바뀌었으면(If-None-Match) 검색 없이 304. (MemberSearchETags)
+     * */
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition){
-        return memberJPARepository.searchByBuilder(condition);
+    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition, WebRequest request){
+        if (memberSearchETags.checkNotModified(request, "rows")) {
+            return null;
+        }
+        return memberSearchBulkhead.execute(condition.shape(), () -> memberSearchSwitch.readModel()
+                .map(readModel -> readModel.search(condition))
+                .orElseGet(() -> memberJPARepository.searchByBuilder(condition)));
+    }
+
+    /**
+     * Accept: application/vnd.member.columnar+json 이면 컬럼별 배열로 응답한다. (대량 export 용)
+     * 행마다 반복되는 키 이름이 없고 팀은 사전으로 한번만 내려가므로 응답이 작다. DTO List도 만들지 않는다.
+     * */
+    @GetMapping(value = "/v1/members", produces = MemberColumns.MEDIA_TYPE)
+    public MemberColumns searchMemberColumns(MemberSearchCondition condition, WebRequest request){
+        if (memberSearchETags.checkNotModified(request, "columnar")) {
+            return null;
+        }
+        return memberSearchBulkhead.execute(condition.shape(), () -> memberSearchSwitch.searchColumns(condition)
+                .orElseGet(() -> memberJPARepository.searchColumns(condition, streamFetchSize)));
+    }
+
+    /**
+     * 필요한 필드만 받는다. (/v1/members?fields=memberId,name)
+     * select 컬럼이 줄고, teamName을 요청하지 않고 teamName 조건도 없으면 team 조인도 하지 않는다.
+     * 응답은 요청한 필드만 담긴 객체 배열. 없는 필드 이름이나 빈 fields는 400 (BadRequestAdvice)
+     * */
+    @GetMapping(value = "/v1/members", params = "fields")
+    public List<Map<String, Object>> searchMemberFields(MemberSearchCondition condition, @RequestParam String fields, WebRequest request){
+        Set<MemberField> selected = MemberField.parse(fields);
+        if (memberSearchETags.checkNotModified(request, "fields")) {
+            return null;
+        }
+        return memberSearchBulkhead.execute(condition.shape(), () -> memberSearchSwitch.readModel()
+                .map(readModel -> readModel.search(condition).stream()
+                        .map(dto -> project(dto, selected))
+                        .collect(Collectors.toList()))
+                .orElseGet(() -> memberJPARepository.searchFields(condition, selected)));
+    }
+
+    private static Map<String, Object> project(MemberTeamDto dto, Set<MemberField> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (MemberField field : fields) {
+            row.put(field.fieldName(), field.get(dto));
+        }
+        return row;
+    }
+
+    /**
+     * 깊은 페이지(5000페이지 이상)도 offset 없이 조회한다.
+     * 다음 페이지는 응답의 nextCursor를 after로 넘겨서 조회. size는 1 ~ 1000으로 자른다.
+     * 잘못된 커서나 정렬키가 다른 커서는 400 (BadRequestAdvice)
+     * /v1/members와 같은 조건 모양 칸에서 실행된다. (MemberSearchBulkhead)
+     * */
+    @GetMapping("/v1/members/keyset")
+    public MemberSlice searchMemberKeyset(MemberSearchCondition condition,
+                                          @RequestParam(required = false) String after,
+                                          @RequestParam(defaultValue = "ID") MemberSortKey sort,
+                                          @RequestParam(defaultValue = "20") int size){
+        int pageSize = Math.max(1, Math.min(size, MemberSlice.MAX_SIZE));
+        return memberSearchBulkhead.execute(condition.shape(), () -> memberSearchSwitch.readModel().orElse(memberRepository)
+                .searchSlice(condition, sort, after, pageSize));
+    }
+
+    /**
+     * 변경 피드. after 커서 다음에 추가 / 수정 / 삭제된 회원을 size건씩 (최대 1000)
+     * 처음에는 after 없이 전체를 받고, 이후로는 응답의 nextCursor를 after로 넘겨서 바뀐 것만 받는다.
+     * */
+    @GetMapping("/v1/members/changes")
+    public MemberChanges memberChanges(@RequestParam(required = false) String after,
+                                       @RequestParam(defaultValue = "500") int size){
+        return memberChangeFeed.changesSince(after, Math.max(1, Math.min(size, 1000)));
+    }
+
+    /**
+     * 벌크 등록. 팀은 이름으로 찾고(없으면 만든다) JDBC batch insert로 넣는다. (MemberIngestRepository)
+     * 한 요청은 한 트랜잭션이므로 행 수를 member.ingest.max-rows로 제한한다. 넘으면 413
+     * */
+    @PostMapping("/v1/members/bulk")
+    public MemberIngestResult ingestMembers(@RequestBody List<MemberIngestRow> rows){
+        if (rows.size() > ingestMaxRows) {
+            throw new MemberIngestTooLargeException("한번에 " + ingestMaxRows + "건까지 등록할 수 있습니다 : " + rows.size());
+        }
+        return memberIngestRepository.saveAll(rows);
+    }
+
+    /**
+     * 검색 결과 전체를 NDJSON(한 줄에 json 하나)으로 흘려보낸다.
+     * 전체 List를 만들지 않고 DB 커서에서 읽는 대로 응답에 쓰기 때문에 건수와 상관없이 힙 사용량이 일정하다.
+     * */
+    @GetMapping(value = "/v1/members/stream", produces = "application/x-ndjson")
+    public void streamMembers(MemberSearchCondition condition, HttpServletResponse response) {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+
+        //끝까지 보낼 때까지 자리를 잡고 있으므로 export 전용 칸에서 동시 실행 수를 제한한다. (MemberSearchBulkhead.EXPORT)
+        memberSearchBulkhead.execute(MemberSearchBulkhead.EXPORT, () -> {
+            //generator 버퍼(약 8KB)가 차는 대로 응답 스트림으로 내보내므로 따로 flush 할 필요 없다.
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+                generator.setRootValueSeparator(null); //기본 구분자(공백) 대신 줄바꿈을 직접 쓴다.
+                memberJPARepository.streamByWhereParam(condition, streamFetchSize, dto -> {
+                    try {
+                        generator.writeObject(dto);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
     }
 }
@@ -0,0 +1,14 @@
+package com.example.querydsl.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 벌크 등록 한 요청의 행 수가 member.ingest.max-rows를 넘었다.
+ * */
+@ResponseStatus(value = HttpStatus.PAYLOAD_TOO_LARGE, reason = "too many rows")
+public class MemberIngestTooLargeException extends RuntimeException {
+    public MemberIngestTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.querydsl.controller;
+
+import com.example.querydsl.sql.DataVersion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * 회원 검색 응답의 ETag / Last-Modified. members / team 데이터 버전(DataVersion)으로 만든다.
+ * 같은 URL이면 버전이 같은 동안 결과도 같으므로, If-None-Match가 맞으면 검색하지 않고 304로 끝낸다.
+ * bulk update / delete도 SQL이 나가므로 버전이 바뀐다. (JdbcTemplate 쓰기는 markChanged 필요)
+ *
+ * Last-Modified는 초 단위라 같은 초 안의 변경은 구분하지 못한다. If-None-Match가 있으면 그것만 본다.
+ * 버전은 프로세스 안의 값이라 인스턴스가 여러개면 다른 인스턴스의 쓰기를 모른다. 그럴 땐 member.etag.enabled=false.
+ * 읽기 전용 replica로 라우팅하면 복제 지연 동안은 새 ETag에 예전 데이터가 나갈 수 있다.
+ * */
+@Component
+public class MemberSearchETags {
+
+    private final DataVersion dataVersion;
+    private final boolean enabled;
+
+    public MemberSearchETags(DataVersion dataVersion, @Value("${member.etag.enabled:true}") boolean enabled) {
+        this.dataVersion = dataVersion;
+        this.enabled = enabled;
+    }
+
+    /**
+     * 검색 전에 부른다. true면 304로 응답이 정해졌으므로 핸들러는 null을 반환하면 된다.
+     * representation은 같은 URL의 다른 응답 형식(rows / fields / columnar)을 구분한다.
+     * */
+    public boolean checkNotModified(WebRequest request, String representation) {
+        if (!enabled) {
+            return false;
+        }
+        //검색 중에 커밋된 변경은 다음 요청에서 버전이 달라지므로 검색 전에 읽은 버전을 쓴다.
+        String etag = representation
+                + "-" + Long.toString(dataVersion.epoch(), 36)
+                + "-" + dataVersion.version(DataVersion.MEMBERS)
+                + "-" + dataVersion.version(DataVersion.TEAM); //따옴표는 checkNotModified가 붙인다.
+        long lastModified = Math.max(dataVersion.lastModified(DataVersion.MEMBERS), dataVersion.lastModified(DataVersion.TEAM));
+        return request.checkNotModified(etag, lastModified);
+    }
+}
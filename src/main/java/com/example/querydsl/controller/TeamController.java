@@ -0,0 +1,24 @@
+package com.example.querydsl.controller;
+
+import com.example.querydsl.dto.TeamStatsDto;
+import com.example.querydsl.stats.TeamStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamStats teamStats;
+
+    /**
+     * 팀별 나이 count / sum / avg / max / min. 매번 GROUP BY 하지 않고 메모리 집계를 읽는다. (TeamStats)
+     * */
+    @GetMapping("/v1/teams/stats")
+    public List<TeamStatsDto> teamStats() {
+        return teamStats.stats();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.querydsl.dto;
+
+/**
+ * 클라이언트가 보낸 검색 파라미터가 잘못됐다. (커서, fields, size 등)
+ * 이 예외만 400으로 바꾸고 메시지를 내려준다. (BadRequestAdvice) 서버 내부의 IllegalArgumentException은 500 그대로
+ * */
+public class InvalidSearchRequestException extends IllegalArgumentException {
+
+    public InvalidSearchRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidSearchRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.querydsl.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 변경 피드의 한 건. DELETE면 memberId / changedAt만 있다.
+ * */
+@Getter
+public class MemberChange {
+
+    public enum Type {
+        UPSERT, DELETE
+    }
+
+    private final Type type;
+    private final Long memberId;
+    private final String name;
+    private final Integer age;
+    private final Long teamId;
+    private final LocalDateTime changedAt;
+
+    private MemberChange(Type type, Long memberId, String name, Integer age, Long teamId, LocalDateTime changedAt) {
+        this.type = type;
+        this.memberId = memberId;
+        this.name = name;
+        this.age = age;
+        this.teamId = teamId;
+        this.changedAt = changedAt;
+    }
+
+    public static MemberChange upsert(Long memberId, String name, int age, Long teamId, LocalDateTime changedAt) {
+        return new MemberChange(Type.UPSERT, memberId, name, age, teamId, changedAt);
+    }
+
+    public static MemberChange delete(Long memberId, LocalDateTime changedAt) {
+        return new MemberChange(Type.DELETE, memberId, null, null, null, changedAt);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.querydsl.dto;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 변경 피드 커서. 마지막으로 받은 변경의 (changedAt, member_id)를 불투명한 문자열로 감싼다.
+ * */
+@Getter
+public class MemberChangeCursor {
+    private final LocalDateTime changedAt;
+    private final Long memberId;
+
+    public MemberChangeCursor(LocalDateTime changedAt, Long memberId) {
+        this.changedAt = changedAt;
+        this.memberId = memberId;
+    }
+
+    public static MemberChangeCursor of(MemberChange last) {
+        return new MemberChangeCursor(last.getChangedAt(), last.getMemberId());
+    }
+
+    public String encode() {
+        String raw = changedAt + "|" + memberId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberChangeCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            return new MemberChangeCursor(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidSearchRequestException("잘못된 커서 : " + cursor, e);
+        }
+    }
+}
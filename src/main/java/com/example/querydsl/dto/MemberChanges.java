@@ -0,0 +1,22 @@
+package com.example.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 변경 피드 결과. 다음 요청에는 nextCursor를 after로 넘긴다.
+ * 새 변경이 없어도 nextCursor는 내려주므로(받은 커서 그대로) 계속 같은 방식으로 polling 하면 된다.
+ * */
+@Getter
+public class MemberChanges {
+    private final List<MemberChange> changes;
+    private final String nextCursor; //처음부터 변경이 하나도 없었으면 null
+    private final boolean hasMore;   //true면 기다리지 말고 바로 다음 batch를 요청
+
+    public MemberChanges(List<MemberChange> changes, String nextCursor, boolean hasMore) {
+        this.changes = changes;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.querydsl.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 검색 결과를 컬럼별 배열로 담는다. (Accept: application/vnd.member.columnar+json)
+ * 행마다 키 이름을 반복하지 않고, 팀은 사전(teams)에 한번만 넣고 행에는 사전 위치만 둔다. (팀 없음 = -1)
+ *
+ * {"size":2,"memberId":[1,2],"name":["member1","member2"],"age":[10,20],"team":[0,-1],
+ *  "teams":{"teamId":[1],"teamName":["teamA"]}}
+ * */
+@JsonSerialize(using = MemberColumns.Serializer.class)
+public class MemberColumns {
+
+    public static final String MEDIA_TYPE = "application/vnd.member.columnar+json";
+
+    private final int size;
+    private final long[] memberIds;
+    private final String[] names;
+    private final int[] ages;
+    private final int[] teams;
+    private final long[] teamIds;
+    private final String[] teamNames;
+
+    private MemberColumns(Builder builder) {
+        this.size = builder.size;
+        this.memberIds = builder.memberIds;
+        this.names = builder.names;
+        this.ages = builder.ages;
+        this.teams = builder.teams;
+        this.teamIds = Arrays.copyOf(builder.teamIds, builder.teamCount);
+        this.teamNames = Arrays.copyOf(builder.teamNames, builder.teamCount);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long memberId(int row) {
+        return memberIds[row];
+    }
+
+    public String name(int row) {
+        return names[row];
+    }
+
+    public int age(int row) {
+        return ages[row];
+    }
+
+    public Long teamId(int row) {
+        return teams[row] < 0 ? null : teamIds[teams[row]];
+    }
+
+    public String teamName(int row) {
+        return teams[row] < 0 ? null : teamNames[teams[row]];
+    }
+
+    /**
+     * 행을 받아서 배열에 바로 채운다. 배열은 모자라면 두배로 늘린다.
+     * */
+    public static class Builder {
+        private int size;
+        private long[] memberIds = new long[16];
+        private String[] names = new String[16];
+        private int[] ages = new int[16];
+        private int[] teams = new int[16];
+
+        private final Map<Long, Integer> teamIndex = new HashMap<>();
+        private int teamCount;
+        private long[] teamIds = new long[4];
+        private String[] teamNames = new String[4];
+
+        public void add(long memberId, String name, int age, Long teamId, String teamName) {
+            if (size == memberIds.length) {
+                int capacity = size * 2;
+                memberIds = Arrays.copyOf(memberIds, capacity);
+                names = Arrays.copyOf(names, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                teams = Arrays.copyOf(teams, capacity);
+            }
+            memberIds[size] = memberId;
+            names[size] = name;
+            ages[size] = age;
+            teams[size] = teamId == null ? -1 : team(teamId, teamName);
+            size++;
+        }
+
+        private int team(long teamId, String teamName) {
+            Integer index = teamIndex.get(teamId);
+            if (index != null) {
+                return index;
+            }
+            if (teamCount == teamIds.length) {
+                teamIds = Arrays.copyOf(teamIds, teamCount * 2);
+                teamNames = Arrays.copyOf(teamNames, teamCount * 2);
+            }
+            teamIds[teamCount] = teamId;
+            teamNames[teamCount] = teamName;
+            teamIndex.put(teamId, teamCount);
+            return teamCount++;
+        }
+
+        public MemberColumns build() {
+            return new MemberColumns(this);
+        }
+    }
+
+    /**
+     * 배열을 그대로 쓴다. (행 객체 / 박싱 없음)
+     * */
+    public static class Serializer extends JsonSerializer<MemberColumns> {
+        @Override
+        public void serialize(MemberColumns columns, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("size", columns.size);
+            generator.writeFieldName("memberId");
+            generator.writeArray(columns.memberIds, 0, columns.size);
+            generator.writeFieldName("name");
+            writeStrings(generator, columns.names, columns.size);
+            generator.writeFieldName("age");
+            generator.writeArray(columns.ages, 0, columns.size);
+            generator.writeFieldName("team");
+            generator.writeArray(columns.teams, 0, columns.size);
+
+            generator.writeObjectFieldStart("teams");
+            generator.writeFieldName("teamId");
+            generator.writeArray(columns.teamIds, 0, columns.teamIds.length);
+            generator.writeFieldName("teamName");
+            writeStrings(generator, columns.teamNames, columns.teamNames.length);
+            generator.writeEndObject();
+
+            generator.writeEndObject();
+        }
+
+        private static void writeStrings(JsonGenerator generator, String[] values, int length) throws IOException {
+            generator.writeStartArray();
+            for (int i = 0; i < length; i++) {
+                generator.writeString(values[i]); //null이면 null
+            }
+            generator.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.querydsl.dto;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * keyset 페이징용 커서.
+ * 클라이언트에게는 마지막 행의 (정렬키, member_id)를 base64로 감싼 불투명한 문자열로만 내려준다.
+ * */
+@Getter
+public class MemberCursor {
+    private final MemberSortKey sortKey;
+    private final Integer age;
+    private final Long memberId;
+
+    public MemberCursor(MemberSortKey sortKey, Integer age, Long memberId) {
+        this.sortKey = sortKey;
+        this.age = age;
+        this.memberId = memberId;
+    }
+
+    public static MemberCursor of(MemberSortKey sortKey, MemberTeamDto last) {
+        return new MemberCursor(sortKey, last.getAge(), last.getMemberId());
+    }
+
+    public String encode() {
+        String raw = sortKey == MemberSortKey.AGE
+                ? sortKey.name() + ":" + age + ":" + memberId
+                : sortKey.name() + ":" + memberId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            MemberSortKey sortKey = MemberSortKey.valueOf(parts[0]);
+            if (sortKey == MemberSortKey.AGE) {
+                return new MemberCursor(sortKey, Integer.valueOf(parts[1]), Long.valueOf(parts[2]));
+            }
+            return new MemberCursor(sortKey, null, Long.valueOf(parts[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new InvalidSearchRequestException("잘못된 커서 : " + cursor, e);
+        }
+    }
+}
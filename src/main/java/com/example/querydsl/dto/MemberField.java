@@ -0,0 +1,60 @@
+package com.example.querydsl.dto;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 검색 결과에서 골라 받을 수 있는 필드. (fields=memberId,name)
+ * teamId는 members.team_id 컬럼이라 team 조인 없이 읽을 수 있고, teamName만 조인이 필요하다.
+ * */
+public enum MemberField {
+    MEMBER_ID("memberId", MemberTeamDto::getMemberId),
+    NAME("name", MemberTeamDto::getName),
+    AGE("age", MemberTeamDto::getAge),
+    TEAM_ID("teamId", MemberTeamDto::getTeamId),
+    TEAM_NAME("teamName", MemberTeamDto::getTeamName);
+
+    private final String fieldName;
+    private final Function<MemberTeamDto, Object> getter;
+
+    MemberField(String fieldName, Function<MemberTeamDto, Object> getter) {
+        this.fieldName = fieldName;
+        this.getter = getter;
+    }
+
+    public String fieldName() {
+        return fieldName;
+    }
+
+    public Object get(MemberTeamDto dto) {
+        return getter.apply(dto);
+    }
+
+    /**
+     * "memberId,name" -> {MEMBER_ID, NAME}. 순서는 enum 순서로 고정된다.
+     * */
+    public static Set<MemberField> parse(String fields) {
+        EnumSet<MemberField> result = EnumSet.noneOf(MemberField.class);
+        for (String token : fields.split(",")) {
+            String name = token.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            result.add(of(name));
+        }
+        if (result.isEmpty()) {
+            throw new InvalidSearchRequestException("fields가 비어 있습니다.");
+        }
+        return result;
+    }
+
+    private static MemberField of(String fieldName) {
+        for (MemberField field : values()) {
+            if (field.fieldName.equals(fieldName)) {
+                return field;
+            }
+        }
+        throw new InvalidSearchRequestException("알 수 없는 필드입니다 : " + fieldName);
+    }
+}
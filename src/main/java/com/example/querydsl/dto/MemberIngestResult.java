@@ -0,0 +1,25 @@
+package com.example.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 벌크 등록 결과. ids는 요청한 행 순서 그대로.
+ * */
+@Getter
+public class MemberIngestResult {
+    private final List<Long> ids;
+    private final int teamsCreated;
+    private final long elapsedMillis;
+
+    public MemberIngestResult(List<Long> ids, int teamsCreated, long elapsedMillis) {
+        this.ids = ids;
+        this.teamsCreated = teamsCreated;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return ids.size() * 1000L / Math.max(1, elapsedMillis);
+    }
+}
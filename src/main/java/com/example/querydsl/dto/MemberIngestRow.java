@@ -0,0 +1,17 @@
+package com.example.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 벌크 등록 한 줄. 팀은 이름으로 받는다. (없으면 만든다, 비우면 팀 없음)
+ * */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberIngestRow {
+    private String name;
+    private int age;
+    private String teamName;
+}
@@ -1,11 +1,56 @@
 package com.example.querydsl.dto;
 
 import lombok.Data;
+import org.springframework.util.StringUtils;
 
 @Data
 public class MemberSearchCondition {
     private String name;
+    private NameMatch nameMatch = NameMatch.EXACT;
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+
+    /**
+     * 캐시 키로 쓰기 위한 정규화된 복사본.
+     * 빈 문자열은 검색 조건에서 무시되므로(hasText) null과 같은 조건으로 취급한다.
+     * */
+    public MemberSearchCondition normalize() {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setName(StringUtils.hasText(name) ? name : null);
+        normalized.setNameMatch(nameMatch != null ? nameMatch : NameMatch.EXACT);
+        normalized.setTeamName(StringUtils.hasText(teamName) ? teamName : null);
+        normalized.setAgeGoe(ageGoe);
+        normalized.setAgeLoe(ageLoe);
+        return normalized;
+    }
+
+    /**
+     * 어떤 조건 필드가 채워져 있는지만 나타내는 이름. (ex. "teamName+ageGoe", "namePrefix", 아무것도 없으면 "none")
+     * 값은 빠지므로 메트릭 태그 등 종류가 한정되어야 하는 곳에 쓴다. (최대 32가지)
+     * */
+    public String shape() {
+        StringBuilder shape = new StringBuilder();
+        appendIf(shape, StringUtils.hasText(name), nameShape());
+        appendIf(shape, StringUtils.hasText(teamName), "teamName");
+        appendIf(shape, ageGoe != null, "ageGoe");
+        appendIf(shape, ageLoe != null, "ageLoe");
+        return shape.length() == 0 ? "none" : shape.toString();
+    }
+
+    private String nameShape() {
+        if (nameMatch == NameMatch.PREFIX) {
+            return "namePrefix";
+        }
+        if (nameMatch == NameMatch.CONTAINS) {
+            return "nameContains";
+        }
+        return "name";
+    }
+
+    private static void appendIf(StringBuilder shape, boolean present, String field) {
+        if (present) {
+            shape.append(shape.length() == 0 ? "" : "+").append(field);
+        }
+    }
 }
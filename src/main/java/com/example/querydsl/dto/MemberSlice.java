@@ -0,0 +1,31 @@
+package com.example.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * keyset 페이징 결과. total count 없이 다음 페이지 커서만 내려준다.
+ * */
+@Getter
+public class MemberSlice {
+
+    public static final int MAX_SIZE = 1000; //한 페이지 최대 건수. 컨트롤러는 이 범위로 잘라서 넘긴다.
+
+    private final List<MemberTeamDto> content;
+    private final String nextCursor; //다음 페이지가 없으면 null
+    private final boolean hasNext;
+
+    public MemberSlice(List<MemberTeamDto> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+
+    /** limit(size + 1)로 한건 더 읽으므로 size는 1 ~ MAX_SIZE */
+    public static void checkSize(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new InvalidSearchRequestException("size는 1 ~ " + MAX_SIZE + " 이어야 합니다 : " + size);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.querydsl.dto;
+
+/**
+ * keyset 페이징 정렬 기준.
+ * 항상 member_id를 마지막 정렬키로 붙여서 순서가 유일하게 결정되도록 한다.
+ * */
+public enum MemberSortKey {
+    ID,     // order by member_id
+    AGE     // order by age, member_id
+}
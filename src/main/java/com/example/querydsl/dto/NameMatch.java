@@ -0,0 +1,11 @@
+package com.example.querydsl.dto;
+
+/**
+ * 이름 검색 방식.
+ * EXACT    : name = ?
+ * PREFIX   : name like '?%'  (members.name 인덱스)
+ * CONTAINS : name like '%?%' (member_name_gram 3-gram 인덱스로 후보를 좁힌 뒤 확인)
+ * */
+public enum NameMatch {
+    EXACT, PREFIX, CONTAINS
+}
@@ -0,0 +1,27 @@
+package com.example.querydsl.dto;
+
+import lombok.Data;
+
+/**
+ * 팀별 member.age 집계. (count / sum / avg / max / min)
+ * */
+@Data
+public class TeamStatsDto {
+    private Long teamId;
+    private String teamName;
+    private long count;
+    private long sum;
+    private double avg;
+    private int max;
+    private int min;
+
+    public TeamStatsDto(Long teamId, String teamName, long count, long sum, int max, int min) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.count = count;
+        this.sum = sum;
+        this.avg = count == 0 ? 0 : (double) sum / count;
+        this.max = max;
+        this.min = min;
+    }
+}
@@ -9,7 +9,12 @@ import javax.persistence.*;
 
 
 @Entity
-@Table(name = "members")
+@Table(name = "members",
+        indexes = {
+                @Index(name = "idx_members_age_id", columnList = "age, member_id"), //keyset 페이징(age, member_id) 정렬용
+                @Index(name = "idx_members_name", columnList = "name"), //이름 일치 / 앞부분 일치(like 'x%') 검색용
+                @Index(name = "idx_members_modified_id", columnList = "last_modified_date, member_id") //변경 피드 커서용
+        })
 @Getter
 @Setter
 @AllArgsConstructor
@@ -19,7 +24,10 @@ import javax.persistence.*;
 )
 @NamedEntityGraph(name = "member.all", attributeNodes = @NamedAttributeNode("team"))
 public class Member extends BaseEntity{
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
+    //allocationSize만큼 시퀀스를 한번에 당겨와서(pooled) insert마다 시퀀스를 조회하지 않는다. -> batch insert 가능
     @Column(name = "member_id")
     private Long id;
     private String name;
@@ -0,0 +1,45 @@
+package com.example.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * 회원 이름의 3-gram 역색인. ("member1" -> mem, emb, mbe, ber, er1)
+ * PK (gram, member_id) 순서라 gram으로 찾는 것이 인덱스 탐색이 된다.
+ * 회원 insert/update/delete 때 MemberNameGramListener가 같은 트랜잭션에서 갱신한다.
+ * */
+@Entity
+@Table(name = "member_name_gram", indexes = @Index(name = "idx_member_name_gram_member", columnList = "member_id"))
+@IdClass(MemberNameGram.Key.class)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+public class MemberNameGram {
+
+    @Id
+    @Column(length = 3)
+    private String gram;
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String gram;
+        private Long memberId;
+    }
+}
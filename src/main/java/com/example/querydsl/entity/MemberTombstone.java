@@ -0,0 +1,33 @@
+package com.example.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 지워진 회원 기록. 변경 피드(/v1/members/changes)가 삭제도 내려줄 수 있도록 남긴다.
+ * 엔티티 삭제는 MemberTombstoneListener, 벌크 삭제는 MemberBulkRepository가 같은 트랜잭션에서 넣는다.
+ * */
+@Entity
+@Table(name = "member_tombstone",
+        indexes = @Index(name = "idx_member_tombstone_deleted_id", columnList = "deleted_date, member_id")) //(deleted_date, member_id) 커서 조회용
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+public class MemberTombstone {
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @Column(name = "deleted_date", nullable = false)
+    private LocalDateTime deletedDate;
+}
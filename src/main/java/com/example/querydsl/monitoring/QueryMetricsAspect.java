@@ -0,0 +1,120 @@
+package com.example.querydsl.monitoring;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberSlice;
+import com.example.querydsl.sql.QueryCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemberJPARepository, MemberRepositoryImpl, MemberController 의 public 메서드 호출마다
+ * 걸린 시간, 반환 건수, 실행한 SQL 수, 로딩한 엔티티 수를 기록한다.
+ * 태그 : layer(repository / controller), class, method, shape(검색조건 모양)
+ *
+ * /actuator/prometheus 또는 /actuator/metrics/member.query.latency?tag=method:searchByBuilder 로 확인.
+ * */
+@Aspect
+@Component
+public class QueryMetricsAspect {
+
+    private final MeterRegistry registry;
+    private final QueryCounter queryCounter;
+
+    public QueryMetricsAspect(MeterRegistry registry, QueryCounter queryCounter) {
+        this.registry = registry;
+        this.queryCounter = queryCounter;
+    }
+
+    @Around("(execution(public * com.example.querydsl.repository.MemberJPARepository.*(..))" +
+            " || execution(public * com.example.querydsl.repository.MemberRepositoryImpl.*(..))" +
+            " || execution(public * com.example.querydsl.controller.MemberController.*(..)))" +
+            " && !execution(com.querydsl.core.types.dsl.BooleanExpression *(..))") //where 조건 조립용 메서드는 제외
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        long statementsBefore = queryCounter.statements();
+        long entitiesBefore = queryCounter.entitiesLoaded();
+        long start = System.nanoTime();
+        String outcome = "success";
+        Object result = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Tags tags = tags(joinPoint);
+            Timer.builder("member.query.latency")
+                    .tags(tags).tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.99)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            summary("member.query.statements", tags, queryCounter.statements() - statementsBefore);
+            summary("member.query.entities", tags, queryCounter.entitiesLoaded() - entitiesBefore);
+            long rows = rows(result);
+            if (rows >= 0) {
+                summary("member.query.rows", tags, rows);
+            }
+        }
+    }
+
+    private void summary(String name, Tags tags, long value) {
+        DistributionSummary.builder(name)
+                .tags(tags)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry)
+                .record(value);
+    }
+
+    private Tags tags(ProceedingJoinPoint joinPoint) {
+        String className = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        return Tags.of(
+                "layer", className.endsWith("Controller") ? "controller" : "repository",
+                "class", className,
+                "method", joinPoint.getSignature().getName(),
+                "shape", shape(joinPoint.getArgs()));
+    }
+
+    private String shape(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof MemberSearchCondition) {
+                return ((MemberSearchCondition) arg).shape();
+            }
+        }
+        return "-";
+    }
+
+    /**
+     * 반환 건수. 셀 수 없는 반환값이면 -1
+     * */
+    private long rows(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) { //Page 포함
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof MemberSlice) {
+            return ((MemberSlice) result).getContent().size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof Long) { //streamByWhereParam 처럼 처리 건수를 돌려주는 경우
+            return (Long) result;
+        }
+        return -1;
+    }
+}
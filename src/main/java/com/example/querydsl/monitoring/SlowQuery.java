@@ -0,0 +1,40 @@
+package com.example.querydsl.monitoring;
+
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 느린 쿼리 한건.
+ * source : Querydsl로 만든 JPQL (JDBC에서 직접 잡힌 경우 null)
+ * rows   : 조회 건수 또는 변경 건수 (알 수 없으면 -1)
+ * */
+@Value
+public class SlowQuery {
+    Instant at;
+    String thread;
+    String source;
+    List<Statement> statements;
+    long durationNanos;
+    long rows;
+
+    public double getDurationMillis() {
+        return durationNanos / 1_000_000.0;
+    }
+
+    /**
+     * batch(executeBatch)면 batchSize = 묶어서 보낸 행 수, params = 처음 몇 행의 바인드 값 (행마다 한 줄)
+     * batch가 아니면 batchSize = 0, params = 한 줄
+     * */
+    @Value
+    public static class Statement {
+        String sql;
+        List<List<String>> params;
+        int batchSize;
+
+        public boolean isBatch() {
+            return batchSize > 0;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.querydsl.monitoring;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 최근 N건과 가장 느린 N건을 락 없이 보관한다.
+ *
+ * recent  : 순번 % N 자리에 덮어쓰는 링 버퍼
+ * slowest : 가장 빠른 항목 자리를 CAS로 교체. 느린 쿼리만 들어오므로 N칸을 훑는 비용은 무시할만 하다.
+ * */
+class SlowQueryBuffer {
+
+    private final AtomicReferenceArray<SlowQuery> recent;
+    private final AtomicReferenceArray<SlowQuery> slowest;
+    private final AtomicLong sequence = new AtomicLong();
+
+    SlowQueryBuffer(int capacity) {
+        this.recent = new AtomicReferenceArray<>(capacity);
+        this.slowest = new AtomicReferenceArray<>(capacity);
+    }
+
+    void add(SlowQuery query) {
+        recent.set((int) (sequence.getAndIncrement() % recent.length()), query);
+
+        while (true) {
+            int fastestIndex = -1;
+            SlowQuery fastest = null;
+            for (int i = 0; i < slowest.length(); i++) {
+                SlowQuery current = slowest.get(i);
+                if (current == null) {
+                    if (slowest.compareAndSet(i, null, query)) {
+                        return;
+                    }
+                    current = slowest.get(i);
+                    if (current == null) {
+                        continue;
+                    }
+                }
+                if (fastest == null || current.getDurationNanos() < fastest.getDurationNanos()) {
+                    fastest = current;
+                    fastestIndex = i;
+                }
+            }
+            if (fastest == null || fastest.getDurationNanos() >= query.getDurationNanos()) {
+                return;
+            }
+            if (slowest.compareAndSet(fastestIndex, fastest, query)) {
+                return;
+            }
+        }
+    }
+
+    /** 최신순 */
+    List<SlowQuery> recent() {
+        List<SlowQuery> result = snapshot(recent);
+        result.sort(Comparator.comparing(SlowQuery::getAt).reversed());
+        return result;
+    }
+
+    /** 느린순 */
+    List<SlowQuery> slowest() {
+        List<SlowQuery> result = snapshot(slowest);
+        result.sort(Comparator.comparingLong(SlowQuery::getDurationNanos).reversed());
+        return result;
+    }
+
+    long recorded() {
+        return sequence.get();
+    }
+
+    void clear() {
+        for (int i = 0; i < recent.length(); i++) {
+            recent.set(i, null);
+            slowest.set(i, null);
+        }
+    }
+
+    private static List<SlowQuery> snapshot(AtomicReferenceArray<SlowQuery> slots) {
+        List<SlowQuery> result = new ArrayList<>(slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            SlowQuery query = slots.get(i);
+            if (query != null) {
+                result.add(query);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.querydsl.monitoring;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * GET    /actuator/slowqueries : 최근 / 가장 느린 쿼리
+ * DELETE /actuator/slowqueries : 비우기
+ * */
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    private final SlowQueryRecorder recorder;
+
+    public SlowQueryEndpoint(SlowQueryRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @ReadOperation
+    public Map<String, Object> slowQueries() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("thresholdMillis", recorder.getThreshold().toMillis());
+        result.put("recorded", recorder.recorded());
+        result.put("slowest", recorder.slowest());
+        result.put("recent", recorder.recent());
+        return result;
+    }
+
+    @DeleteOperation
+    public void clear() {
+        recorder.clear();
+    }
+}
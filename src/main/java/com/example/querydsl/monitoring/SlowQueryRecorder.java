@@ -0,0 +1,250 @@
+package com.example.querydsl.monitoring;
+
+import com.mysema.commons.lang.CloseableIterator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * threshold 이상 걸린 쿼리를 SlowQueryBuffer에 남긴다. (show-sql 대신 운영에서 켜둘 수 있는 느린 쿼리 로그)
+ *
+ * 두 군데서 잡는다.
+ *  1. Querydsl fetch 계열 / iterate (SlowQueryRecordingQueryFactory) : JPQL, 전체 시간(결과 매핑 포함), 결과 건수
+ *     iterate는 커서를 닫을 때까지를 한 쿼리로 본다. (stream / export처럼 읽는 쪽 처리 시간도 포함)
+ *  2. JDBC 실행 (SlowQueryRecordingDataSource)            : SQL, 바인드 값, 실행 시간
+ * 1 안에서 실행된 SQL은 1의 항목에 같이 붙고, 1 밖의 SQL(Spring Data 쿼리, 직접 작성한 JPQL 등)은 SQL만으로 남는다.
+ *
+ * threshold 아래면 시간 측정과 바인드 값 배열 복사 정도만 하고, JPQL 문자열 생성 등은 하지 않는다.
+ * */
+@Slf4j
+@Component
+public class SlowQueryRecorder {
+
+    private static final int MAX_STATEMENTS = 10;
+    private static final int MAX_PARAM_LENGTH = 100;
+    static final int MAX_BATCH_ROWS = 5; //batch는 처음 몇 행의 바인드 값만 남긴다.
+
+    private static final ThreadLocal<Frame> FRAME = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final SlowQueryBuffer buffer;
+
+    public SlowQueryRecorder(@Value("${member.slow-query.enabled:true}") boolean enabled,
+                             @Value("${member.slow-query.threshold:200ms}") Duration threshold,
+                             @Value("${member.slow-query.capacity:50}") int capacity) {
+        this.enabled = enabled;
+        this.thresholdNanos = threshold.toNanos();
+        this.buffer = new SlowQueryBuffer(capacity);
+    }
+
+    /**
+     * Querydsl 쿼리 실행 한번을 감싼다.
+     * */
+    public <T> T record(Supplier<String> source, Supplier<T> query, ToLongFunction<T> rows) {
+        if (!enabled) {
+            return query.get();
+        }
+        Frame outer = FRAME.get();
+        Frame frame = new Frame();
+        FRAME.set(frame);
+        long start = System.nanoTime();
+        try {
+            T result = query.get();
+            long elapsed = System.nanoTime() - start;
+            if (elapsed >= thresholdNanos) {
+                add(source.get(), frame.statements(), elapsed, rows.applyAsLong(result));
+            }
+            return result;
+        } finally {
+            restore(outer);
+        }
+    }
+
+    /**
+     * Querydsl iterate() 한번을 감싼다. 여는 동안 나간 SQL을 붙이고, 닫힐 때 전체 시간과 읽은 행 수로 기록한다.
+     * */
+    public <T> CloseableIterator<T> recordIteration(Supplier<String> source, Supplier<CloseableIterator<T>> query) {
+        if (!enabled) {
+            return query.get();
+        }
+        Frame outer = FRAME.get();
+        Frame frame = new Frame();
+        FRAME.set(frame);
+        long start = System.nanoTime();
+        try {
+            return new RecordingIterator<>(query.get(), source, frame, start);
+        } finally {
+            restore(outer); //읽는 중에 consumer가 실행하는 다른 쿼리는 붙이지 않는다.
+        }
+    }
+
+    private static void restore(Frame outer) {
+        if (outer == null) {
+            FRAME.remove();
+        } else {
+            FRAME.set(outer);
+        }
+    }
+
+    /**
+     * JDBC statement 실행 한번. params는 호출한 쪽이 계속 재사용하므로 필요할 때만 복사한다.
+     * */
+    void onExecute(String sql, Object[] params, int paramCount, long elapsedNanos, long rows) {
+        if (!enabled) {
+            return;
+        }
+        Frame frame = FRAME.get();
+        if (frame != null) {
+            frame.add(sql, Collections.singletonList(Arrays.copyOf(params, paramCount)), 0);
+            return;
+        }
+        if (elapsedNanos >= thresholdNanos) {
+            add(null, Collections.singletonList(statement(sql, Collections.singletonList(Arrays.copyOf(params, paramCount)), 0)),
+                    elapsedNanos, rows);
+        }
+    }
+
+    /**
+     * executeBatch 한번. batchRows는 처음 MAX_BATCH_ROWS 행의 바인드 값(이미 복사된 것), batchSize는 전체 행 수
+     * */
+    void onExecuteBatch(String sql, List<Object[]> batchRows, int batchSize, long elapsedNanos, long rows) {
+        if (!enabled) {
+            return;
+        }
+        Frame frame = FRAME.get();
+        if (frame != null) {
+            frame.add(sql, batchRows, batchSize);
+            return;
+        }
+        if (elapsedNanos >= thresholdNanos) {
+            add(null, Collections.singletonList(statement(sql, batchRows, batchSize)), elapsedNanos, rows);
+        }
+    }
+
+    private void add(String source, List<SlowQuery.Statement> statements, long elapsedNanos, long rows) {
+        SlowQuery query = new SlowQuery(Instant.now(), Thread.currentThread().getName(), source, statements, elapsedNanos, rows);
+        buffer.add(query);
+        log.warn("slow query {} ms, rows={} : {}", query.getDurationMillis(), rows, source != null ? source : statements);
+    }
+
+    public Duration getThreshold() {
+        return Duration.ofNanos(thresholdNanos);
+    }
+
+    public List<SlowQuery> recent() {
+        return buffer.recent();
+    }
+
+    public List<SlowQuery> slowest() {
+        return buffer.slowest();
+    }
+
+    public long recorded() {
+        return buffer.recorded();
+    }
+
+    public void clear() {
+        buffer.clear();
+    }
+
+    private static SlowQuery.Statement statement(String sql, List<Object[]> rows, int batchSize) {
+        List<List<String>> values = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            List<String> rowValues = new ArrayList<>(row.length);
+            for (Object param : row) {
+                rowValues.add(toString(param));
+            }
+            values.add(rowValues);
+        }
+        return new SlowQuery.Statement(sql, values, batchSize);
+    }
+
+    private static String toString(Object param) {
+        if (param == null) {
+            return null;
+        }
+        String value = String.valueOf(param);
+        return value.length() > MAX_PARAM_LENGTH ? value.substring(0, MAX_PARAM_LENGTH) + "..." : value;
+    }
+
+    private class RecordingIterator<T> implements CloseableIterator<T> {
+        private final CloseableIterator<T> delegate;
+        private final Supplier<String> source;
+        private final Frame frame;
+        private final long start;
+        private long rows;
+        private boolean closed;
+
+        RecordingIterator(CloseableIterator<T> delegate, Supplier<String> source, Frame frame, long start) {
+            this.delegate = delegate;
+            this.source = source;
+            this.frame = frame;
+            this.start = start;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public T next() {
+            T next = delegate.next();
+            rows++;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            delegate.remove();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+            if (closed) {
+                return;
+            }
+            closed = true;
+            long elapsed = System.nanoTime() - start;
+            if (elapsed >= thresholdNanos) {
+                add(source.get(), frame.statements(), elapsed, rows);
+            }
+        }
+    }
+
+    /**
+     * Querydsl 쿼리 하나가 실행되는 동안 나간 SQL들. 느린 경우에만 문자열로 바꾼다.
+     * */
+    private static class Frame {
+        private final List<String> sqls = new ArrayList<>(2);
+        private final List<List<Object[]>> params = new ArrayList<>(2);
+        private final List<Integer> batchSizes = new ArrayList<>(2);
+
+        void add(String sql, List<Object[]> rows, int batchSize) {
+            if (sqls.size() < MAX_STATEMENTS) {
+                sqls.add(sql);
+                params.add(rows);
+                batchSizes.add(batchSize);
+            }
+        }
+
+        List<SlowQuery.Statement> statements() {
+            List<SlowQuery.Statement> result = new ArrayList<>(sqls.size());
+            for (int i = 0; i < sqls.size(); i++) {
+                result.add(statement(sqls.get(i), params.get(i), batchSizes.get(i)));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.querydsl.monitoring;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 커넥션 / statement를 JDK 프록시로 감싸서 실행 시간과 바인드 값을 SlowQueryRecorder에 넘긴다.
+ * (datasource-proxy 같은 라이브러리 없이 필요한 만큼만)
+ * batch는 addBatch마다 행 수를 세고 처음 몇 행(SlowQueryRecorder.MAX_BATCH_ROWS)의 바인드 값만 복사해둔다.
+ * */
+public class SlowQueryRecordingDataSource extends DelegatingDataSource {
+
+    private final SlowQueryRecorder recorder;
+
+    public SlowQueryRecordingDataSource(DataSource target, SlowQueryRecorder recorder) {
+        super(target);
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = SlowQueryRecordingDataSource.invoke(target, method, args);
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return statement(PreparedStatement.class, (Statement) result, (String) args[0]);
+                case "prepareCall":
+                    return statement(CallableStatement.class, (Statement) result, (String) args[0]);
+                case "createStatement":
+                    return statement(Statement.class, (Statement) result, null);
+                default:
+                    return result;
+            }
+        }
+
+        private Object statement(Class<? extends Statement> type, Statement statement, String sql) {
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                    new StatementHandler(statement, sql));
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedSql;
+        private Object[] params = new Object[8];
+        private int paramCount;
+        private List<Object[]> batchRows = new ArrayList<>();
+        private int batchSize;
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                bind((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                Arrays.fill(params, 0, paramCount, null);
+                paramCount = 0;
+            } else if (name.equals("addBatch")) {
+                addBatch();
+            } else if (name.equals("clearBatch")) {
+                clearBatch();
+            } else if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                return executeBatch(method, args);
+            } else if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            return SlowQueryRecordingDataSource.invoke(target, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            long start = System.nanoTime();
+            Object result = SlowQueryRecordingDataSource.invoke(target, method, args);
+            recorder.onExecute(sql, params, paramCount, System.nanoTime() - start, rows(result));
+            return result;
+        }
+
+        private Object executeBatch(Method method, Object[] args) throws Throwable {
+            List<Object[]> rows = batchRows;
+            int size = batchSize;
+            clearBatch(); //실패해도 JDBC 스펙상 batch는 비워진다.
+            long start = System.nanoTime();
+            Object result = SlowQueryRecordingDataSource.invoke(target, method, args);
+            recorder.onExecuteBatch(preparedSql, rows, size, System.nanoTime() - start, rows(result));
+            return result;
+        }
+
+        /** PreparedStatement.addBatch() : 지금 바인드된 값이 한 행. Statement.addBatch(sql)는 행 수만 센다. */
+        private void addBatch() {
+            if (batchRows.size() < SlowQueryRecorder.MAX_BATCH_ROWS) {
+                batchRows.add(Arrays.copyOf(params, paramCount));
+            }
+            batchSize++;
+        }
+
+        private void clearBatch() {
+            batchRows = new ArrayList<>();
+            batchSize = 0;
+        }
+
+        private void bind(int index, Object value) {
+            if (index > params.length) {
+                params = Arrays.copyOf(params, Math.max(index, params.length * 2));
+            }
+            params[index - 1] = value;
+            paramCount = Math.max(paramCount, index);
+        }
+
+        private long rows(Object result) {
+            if (result instanceof Integer || result instanceof Long) {
+                return ((Number) result).longValue();
+            }
+            if (result instanceof int[]) {
+                return Arrays.stream((int[]) result).filter(count -> count >= 0).asLongStream().sum(); //SUCCESS_NO_INFO(-2) 제외
+            }
+            if (result instanceof long[]) {
+                return Arrays.stream((long[]) result).filter(count -> count >= 0).sum();
+            }
+            return -1; //select는 ResultSet을 다 읽어야 알 수 있다.
+        }
+    }
+}
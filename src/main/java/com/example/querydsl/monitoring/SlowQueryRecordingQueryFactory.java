@@ -0,0 +1,71 @@
+package com.example.querydsl.monitoring;
+
+import com.example.querydsl.admission.QueryTimeouts;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * select / selectFrom / from 이 모두 query()를 거치므로 여기서 기록용 JPAQuery를 만들어 준다.
+ * (JPAQuery.select는 새 객체가 아니라 자기 자신을 돌려주므로 끝까지 RecordingQuery로 실행된다)
+ * 만들때 query timeout 힌트도 같이 건다. (QueryTimeouts)
+ * */
+public class SlowQueryRecordingQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager em;
+    private final SlowQueryRecorder recorder;
+    private final QueryTimeouts queryTimeouts;
+
+    public SlowQueryRecordingQueryFactory(EntityManager em, SlowQueryRecorder recorder, QueryTimeouts queryTimeouts) {
+        super(em);
+        this.em = em;
+        this.recorder = recorder;
+        this.queryTimeouts = queryTimeouts;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new RecordingQuery<Void>(em, recorder).setHint(QueryTimeouts.HINT, queryTimeouts.currentMillis());
+    }
+
+    static class RecordingQuery<T> extends JPAQuery<T> {
+
+        private final transient SlowQueryRecorder recorder;
+
+        RecordingQuery(EntityManager em, SlowQueryRecorder recorder) {
+            super(em);
+            this.recorder = recorder;
+        }
+
+        @Override
+        public List<T> fetch() {
+            return recorder.record(this::toString, super::fetch, List::size);
+        }
+
+        @Override
+        public T fetchOne() throws NonUniqueResultException {
+            return recorder.record(this::toString, super::fetchOne, result -> result == null ? 0 : 1);
+        }
+
+        @Override
+        public QueryResults<T> fetchResults() {
+            return recorder.record(this::toString, super::fetchResults, results -> results.getResults().size());
+        }
+
+        @Override
+        public long fetchCount() {
+            return recorder.record(this::toString, super::fetchCount, count -> 1);
+        }
+
+        /** 커서가 닫힐 때 기록된다. (stream / export) */
+        @Override
+        public CloseableIterator<T> iterate() {
+            return recorder.recordIteration(this::toString, super::iterate);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.querydsl.projection;
+
+import org.springframework.util.ClassUtils;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * DTO 하나를 만드는 MethodHandle 묶음. (기본 생성자 + 이름 순서대로 setter / field)
+ * (DTO 클래스, 접근 방식, 이름 목록)별로 한번만 만든다.
+ * 모든 handle을 (Object, Object)void 모양으로 맞춰두므로 row마다 boxing된 값을 그대로 넣는다. (primitive는 handle이 unboxing)
+ * */
+final class BeanWriter {
+
+    private static final MethodType CONSTRUCTOR = MethodType.methodType(Object.class);
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ConcurrentMap<Key, BeanWriter> CACHE = new ConcurrentHashMap<>();
+
+    private final MethodHandle constructor;
+    private final MethodHandle[] setters;      //대상이 없는 이름은 null (QBean처럼 무시)
+    private final Class<?>[] targetTypes;
+    private final List<String> names;
+
+    private BeanWriter(MethodHandle constructor, MethodHandle[] setters, Class<?>[] targetTypes, List<String> names) {
+        this.constructor = constructor;
+        this.setters = setters;
+        this.targetTypes = targetTypes;
+        this.names = names;
+    }
+
+    static BeanWriter of(Class<?> type, boolean fieldAccess, List<String> names) {
+        return CACHE.computeIfAbsent(new Key(type, fieldAccess, List.copyOf(names)), BeanWriter::create);
+    }
+
+    Object write(Object[] values) throws Throwable {
+        Object bean = constructor.invokeExact();
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            MethodHandle setter = setters[i];
+            if (value != null && setter != null) {
+                setter.invokeExact(bean, value);
+            }
+        }
+        return bean;
+    }
+
+    /**
+     * select 타입이 대상에 들어갈 수 없으면 쿼리 전에 실패시킨다. (QBean의 typeMismatch)
+     * */
+    void checkTypes(List<Class<?>> valueTypes) {
+        for (int i = 0; i < targetTypes.length; i++) {
+            if (targetTypes[i] != null && !ClassUtils.isAssignable(targetTypes[i], valueTypes.get(i))) {
+                throw new IllegalArgumentException(names.get(i) + " : " + valueTypes.get(i).getName()
+                        + " 값을 " + targetTypes[i].getName() + " 에 넣을 수 없습니다.");
+            }
+        }
+    }
+
+    private static BeanWriter create(Key key) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(key.type, MethodHandles.lookup());
+            MethodHandle constructor = lookup.findConstructor(key.type, MethodType.methodType(void.class)).asType(CONSTRUCTOR);
+
+            MethodHandle[] setters = new MethodHandle[key.names.size()];
+            Class<?>[] targetTypes = new Class<?>[key.names.size()];
+            for (int i = 0; i < setters.length; i++) {
+                String name = key.names.get(i);
+                if (key.fieldAccess) {
+                    Field field = findField(key.type, name);
+                    if (field != null) {
+                        setters[i] = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup())
+                                .unreflectSetter(field).asType(SETTER);
+                        targetTypes[i] = field.getType();
+                    }
+                } else {
+                    Method method = findSetter(key.type, name);
+                    if (method != null) {
+                        setters[i] = lookup.unreflect(method).asType(SETTER);
+                        targetTypes[i] = method.getParameterTypes()[0];
+                    }
+                }
+            }
+            return new BeanWriter(constructor, setters, targetTypes, key.names);
+        } catch (ReflectiveOperationException | IntrospectionException e) {
+            throw new IllegalArgumentException(key.type.getName() + " 프로젝션을 만들 수 없습니다.", e);
+        }
+    }
+
+    private static Field findField(Class<?> type, String name) {
+        for (Class<?> current = type; current != Object.class && current != null; current = current.getSuperclass()) {
+            try {
+                return current.getDeclaredField(name);
+            } catch (NoSuchFieldException e) {
+                //상위 클래스에서 찾는다.
+            }
+        }
+        return null;
+    }
+
+    private static Method findSetter(Class<?> type, String name) throws IntrospectionException {
+        for (PropertyDescriptor descriptor : Introspector.getBeanInfo(type).getPropertyDescriptors()) {
+            if (descriptor.getName().equals(name)) {
+                return descriptor.getWriteMethod();
+            }
+        }
+        return null;
+    }
+
+    private static final class Key {
+        private final Class<?> type;
+        private final boolean fieldAccess;
+        private final List<String> names;
+
+        Key(Class<?> type, boolean fieldAccess, List<String> names) {
+            this.type = type;
+            this.fieldAccess = fieldAccess;
+            this.names = names;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return type == other.type && fieldAccess == other.fieldAccess && names.equals(other.names);
+        }
+
+        @Override
+        public int hashCode() {
+            return (type.hashCode() * 31 + Boolean.hashCode(fieldAccess)) * 31 + names.hashCode();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+
+/**
+ * Projections.bean / Projections.fields 대신 쓸 수 있는 프로젝션.
+ * 이름 매칭(path 이름, ExpressionUtils.as 별칭)과 null 값은 건너뛰는 동작은 Querydsl QBean과 같다.
+ *
+ * QBean은 쿼리마다 Introspector / getDeclaredField로 대상을 찾고, row마다 Method.invoke / Field.set을 호출한다.
+ * 여기서는 (DTO 클래스, 접근 방식, 이름 목록)별로 MethodHandle을 한번만 만들어 캐시하고 row마다 그걸 호출한다.
+ * */
+public final class FastProjections {
+
+    private FastProjections() {
+    }
+
+    /**
+     * setter로 채운다. (Projections.bean)
+     * */
+    public static <T> FactoryExpression<T> bean(Class<? extends T> type, Expression<?>... exprs) {
+        return new HandleBean<>(type, false, exprs);
+    }
+
+    /**
+     * 필드에 바로 넣는다. private 필드도 된다. (Projections.fields)
+     * */
+    public static <T> FactoryExpression<T> fields(Class<? extends T> type, Expression<?>... exprs) {
+        return new HandleBean<>(type, true, exprs);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionException;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.QTuple;
+import com.querydsl.core.types.Visitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * FastProjections가 만드는 FactoryExpression. 값을 넣는 건 캐시된 BeanWriter가 한다.
+ * 인자 처리(createBindings)는 QBean과 같다. (hashCode는 ExpressionBase가 args로 계산)
+ * */
+final class HandleBean<T> extends FactoryExpressionBase<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Expression<?>> args;
+    private final boolean fieldAccess;
+    private final transient BeanWriter writer;
+
+    @SuppressWarnings("unchecked")
+    HandleBean(Class<? extends T> type, boolean fieldAccess, Expression<?>... exprs) {
+        super((Class<T>) type);
+        this.fieldAccess = fieldAccess;
+
+        List<Expression<?>> bindings = new ArrayList<>(exprs.length);
+        List<String> names = new ArrayList<>(exprs.length);
+        List<Class<?>> valueTypes = new ArrayList<>(exprs.length);
+        for (Expression<?> expr : exprs) {
+            names.add(name(expr));
+            bindings.add(binding(expr));
+            valueTypes.add(expr.getType());
+        }
+        this.args = Collections.unmodifiableList(bindings);
+        this.writer = BeanWriter.of(type, fieldAccess, names);
+        this.writer.checkTypes(valueTypes);
+    }
+
+    private static String name(Expression<?> expr) {
+        if (expr instanceof Path<?>) {
+            return ((Path<?>) expr).getMetadata().getName();
+        }
+        if (expr instanceof Operation<?>) {
+            Operation<?> operation = (Operation<?>) expr;
+            if (operation.getOperator() == Ops.ALIAS && operation.getArg(1) instanceof Path<?>) {
+                return ((Path<?>) operation.getArg(1)).getMetadata().getName();
+            }
+        }
+        throw new IllegalArgumentException("Unsupported expression " + expr);
+    }
+
+    /**
+     * 별칭을 붙인 FactoryExpression(중첩 DTO 등)은 별칭을 벗겨서 넘긴다. (QBean과 같음)
+     * */
+    private static Expression<?> binding(Expression<?> expr) {
+        if (expr instanceof Operation<?>) {
+            Expression<?> target = ((Operation<?>) expr).getArg(0);
+            if (target instanceof FactoryExpression<?> || target instanceof QTuple) {
+                return target;
+            }
+        }
+        return expr;
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T newInstance(Object... values) {
+        try {
+            return (T) writer.write(values);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ExpressionException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof HandleBean<?>)) {
+            return false;
+        }
+        HandleBean<?> other = (HandleBean<?>) obj;
+        return getType().equals(other.getType()) && fieldAccess == other.fieldAccess && args.equals(other.args);
+    }
+}
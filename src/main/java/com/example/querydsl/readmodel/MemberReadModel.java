@@ -0,0 +1,569 @@
+package com.example.querydsl.readmodel;
+
+import com.example.querydsl.dto.MemberColumns;
+import com.example.querydsl.dto.MemberCursor;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberSortKey;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.sql.DataVersion;
+import com.example.querydsl.sql.EntityWriteTracker;
+import com.example.querydsl.sql.SqlStatementListener;
+import com.example.querydsl.sql.SqlStatements;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.internal.ForeignKeys;
+import org.hibernate.event.spi.AbstractEvent;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MemberTeamDto 읽기 모델. 회원을 팀별로 나눠서 나이순 배열로 메모리에 들고 있다. (member.read-model.enabled=true)
+ * 검색은 팀 이름으로 TeamSlice를 찾고 나이 범위를 이진 탐색하므로 DB를 거치지 않는다.
+ *
+ * 갱신
+ *  - 엔티티 insert / update / delete : hibernate 이벤트를 트랜잭션별로 모아뒀다가 커밋 후에 반영 (롤백되면 버림)
+ *  - bulk JPQL 등 엔티티 이벤트 없이 members / team에 나간 쓰기 SQL : 커밋 후 전체를 다시 읽는다.
+ *    엔티티 이벤트 밖에서 나간 쓰기 SQL을 bulk로 본다. (EntityWriteTracker)
+ *  - hibernate를 거치지 않는 쓰기(JdbcTemplate 등)는 invalidate()를 직접 호출한다.
+ * 다시 읽는 동안(isReady() == false)은 MemberSearchSwitch가 DB로 조회한다.
+ *
+ * 동시에 커밋된 트랜잭션의 변경은 afterCommit이 불린 순서대로 반영되므로 커밋 순서와 어긋날 수 있다.
+ * 이런 오차는 주기적으로 전체를 다시 읽어서 맞춘다. (member.read-model.resync-interval, 그동안에도 검색은 메모리에서)
+ *
+ * 읽기는 불변 Snapshot을 volatile로 교체하는 방식이라 락이 없다.
+ * 다시 읽을 때 select는 락 밖에서 하고, 그동안 커밋된 변경은 pending에 모았다가 교체한 뒤에 다시 반영한다.
+ * */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "member.read-model", name = "enabled", havingValue = "true")
+public class MemberReadModel implements SqlStatementListener, DisposableBean,
+        PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final long NO_TEAM = 0L; //시퀀스 id는 1부터
+    private static final int RESORT_THRESHOLD = 32; //한번에 이보다 많이 바뀐 팀은 끼우고 빼는 대신 새로 정렬한다.
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService rebuildExecutor;
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final AtomicLong generation = new AtomicLong(); //invalidate 횟수
+    private final Object rebuildLock = new Object(); //다시 읽기는 한번에 하나씩. apply()는 막지 않는다.
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean ready;
+
+    //아래는 this 락을 잡고만 바꾼다.
+    private final Map<Long, Row> rows = new HashMap<>();
+    private final Map<Long, Set<Long>> membersByTeam = new HashMap<>();
+    private final Map<Long, String> teamNames = new HashMap<>();
+    private List<Object> pending; //다시 읽는 중이면 그동안 커밋된 변경, 아니면 null
+
+    public MemberReadModel(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "member-read-model");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        List<MemberTeamDto> result = new ArrayList<>();
+        search(condition, (memberId, name, age, teamId, teamName) -> result.add(new MemberTeamDto(memberId, name, age, teamId, teamName)));
+        return result;
+    }
+
+    public MemberColumns searchColumns(MemberSearchCondition condition) {
+        MemberColumns.Builder columns = MemberColumns.builder();
+        search(condition, columns::add);
+        return columns.build();
+    }
+
+    private void search(MemberSearchCondition condition, RowSink sink) {
+        MemberSearchCondition normalized = condition.normalize();
+        for (TeamSlice slice : slices(snapshot, normalized)) {
+            slice.collect(normalized, sink);
+        }
+    }
+
+    /**
+     * keyset 한 페이지(limit건까지). 팀마다 after 다음 위치를 이진 탐색으로 찾고 팀끼리 정렬 순서대로 병합하므로
+     * 전체 결과를 만들거나 정렬하지 않는다.
+     * */
+    public List<MemberTeamDto> searchSlice(MemberSearchCondition condition, MemberSortKey sortKey, MemberCursor after, int limit) {
+        MemberSearchCondition normalized = condition.normalize();
+        return merge(slices(snapshot, normalized), normalized, sortKey, after, 0, limit);
+    }
+
+    /**
+     * member_id 순 offset 페이지. 건너뛰는 행도 DTO를 만들지 않고, 전체 건수는 팀별로 센다. (같은 Snapshot)
+     * */
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        MemberSearchCondition normalized = condition.normalize();
+        Collection<TeamSlice> slices = slices(snapshot, normalized);
+        long total = 0;
+        for (TeamSlice slice : slices) {
+            total += slice.count(normalized);
+        }
+        List<MemberTeamDto> content = merge(slices, normalized, MemberSortKey.ID, null, pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private static Collection<TeamSlice> slices(Snapshot current, MemberSearchCondition normalized) {
+        return normalized.getTeamName() == null
+                ? current.slices
+                : current.byTeamName.getOrDefault(normalized.getTeamName(), Collections.emptyList());
+    }
+
+    private static List<MemberTeamDto> merge(Collection<TeamSlice> slices, MemberSearchCondition normalized,
+                                             MemberSortKey sortKey, MemberCursor after, long offset, int limit) {
+        Comparator<TeamSlice.Scan> order = sortKey == MemberSortKey.AGE
+                ? Comparator.comparingInt(TeamSlice.Scan::age).thenComparingLong(TeamSlice.Scan::memberId)
+                : Comparator.comparingLong(TeamSlice.Scan::memberId);
+        PriorityQueue<TeamSlice.Scan> scans = new PriorityQueue<>(order);
+        for (TeamSlice slice : slices) {
+            TeamSlice.Scan scan = sortKey == MemberSortKey.AGE
+                    ? slice.scanByAge(normalized, after)
+                    : slice.scanById(normalized, after);
+            if (scan.advance()) {
+                scans.add(scan);
+            }
+        }
+        List<MemberTeamDto> result = new ArrayList<>();
+        long skip = offset;
+        while (result.size() < limit && !scans.isEmpty()) {
+            TeamSlice.Scan scan = scans.poll();
+            if (skip > 0) {
+                skip--;
+            } else {
+                result.add(scan.toDto());
+            }
+            if (scan.advance()) {
+                scans.add(scan);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return snapshot.size;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        invalidate();
+    }
+
+    /**
+     * 전체를 다시 읽도록 예약한다. 여러번 불려도 한번만 돈다.
+     * */
+    public void invalidate() {
+        generation.incrementAndGet();
+        ready = false;
+        scheduleRebuild();
+    }
+
+    /**
+     * 반영 순서로 생긴 오차를 맞추려고 주기적으로 다시 읽는다. 읽는 동안에도 검색은 이전 Snapshot으로 한다.
+     * */
+    @Scheduled(initialDelayString = "${member.read-model.resync-interval:PT10M}",
+            fixedDelayString = "${member.read-model.resync-interval:PT10M}")
+    public void scheduledResync() {
+        scheduleRebuild();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildScheduled.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("member read model rebuild failed, searches stay on the database", e);
+                }
+            });
+        }
+    }
+
+    void rebuild() {
+        synchronized (rebuildLock) {
+            reload();
+        }
+    }
+
+    private void reload() {
+        long start = System.nanoTime();
+        long startGeneration = generation.get();
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+
+        Map<Long, String> freshTeamNames = new HashMap<>();
+        List<Row> freshRows = new ArrayList<>();
+        try {
+            jdbcTemplate.query("select team_id, name from team",
+                    rs -> {
+                        freshTeamNames.put(rs.getLong(1), rs.getString(2));
+                    });
+            jdbcTemplate.query("select member_id, name, age, team_id from members",
+                    rs -> {
+                        long teamId = rs.getLong(4); //null이면 0 = NO_TEAM
+                        freshRows.add(new Row(rs.getLong(1), rs.getString(2), rs.getInt(3), teamId));
+                    });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                List<Object> missed = pending;
+                pending = null;
+                apply(missed); //읽기 전 상태에 그대로 반영 (준비 안된 상태면 버려진다)
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            rows.clear();
+            membersByTeam.clear();
+            teamNames.clear();
+            teamNames.putAll(freshTeamNames);
+            for (Row row : freshRows) {
+                put(row);
+            }
+            Map<Long, TeamSlice> slices = new HashMap<>();
+            for (Long teamId : membersByTeam.keySet()) {
+                slices.put(teamId, slice(teamId));
+            }
+            //읽는 동안 커밋된 변경. select에 이미 들어있어도 같은 값으로 덮어쓸 뿐이다.
+            applyTo(slices, pending);
+            pending = null;
+            publish(slices);
+            //읽는 사이에 또 invalidate 됐으면 다음 rebuild가 끝날때까지 준비 안됨
+            ready = generation.get() == startGeneration;
+        }
+        log.info("member read model loaded : {} members, {} teams, {} ms",
+                freshRows.size(), freshTeamNames.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private synchronized void apply(List<Object> changes) {
+        if (pending != null) {
+            pending.addAll(changes); //다시 읽은 결과 위에 반영한다.
+            return;
+        }
+        if (!ready) {
+            return; //다시 읽을 예정이면 그 결과에 포함된다.
+        }
+        Map<Long, TeamSlice> slices = new HashMap<>(snapshot.byTeamId);
+        applyTo(slices, changes);
+        publish(slices);
+    }
+
+    /**
+     * rows / membersByTeam / teamNames에 변경을 반영하고 slices에서는 바뀐 팀만 고친다. this 락 안에서만
+     * 팀마다 바뀐 회원만 with / without으로 끼우고 빼고, 한번에 많이 바뀐 팀만 배열을 새로 정렬한다.
+     * */
+    private void applyTo(Map<Long, TeamSlice> slices, List<Object> changes) {
+        Map<Long, List<Object>> edits = new LinkedHashMap<>(); //팀 id -> Row(넣기) / Removal(빼기)
+        Set<Long> renamedTeams = new HashSet<>();
+        for (Object change : changes) {
+            if (change instanceof Row) {
+                Row row = (Row) change;
+                Row old = rows.get(row.memberId);
+                if (old != null) {
+                    remove(old);
+                    edits.computeIfAbsent(old.teamId, key -> new ArrayList<>()).add(new Removal(old));
+                }
+                put(row);
+                edits.computeIfAbsent(row.teamId, key -> new ArrayList<>()).add(row);
+            } else if (change instanceof RemovedMember) {
+                Row old = rows.get(((RemovedMember) change).memberId);
+                if (old != null) {
+                    remove(old);
+                    edits.computeIfAbsent(old.teamId, key -> new ArrayList<>()).add(new Removal(old));
+                }
+            } else if (change instanceof TeamName) {
+                TeamName teamName = (TeamName) change;
+                if (teamName.name == null) {
+                    teamNames.remove(teamName.teamId);
+                } else {
+                    teamNames.put(teamName.teamId, teamName.name);
+                }
+                renamedTeams.add(teamName.teamId);
+            }
+        }
+
+        for (Map.Entry<Long, List<Object>> entry : edits.entrySet()) {
+            Long teamId = entry.getKey();
+            TeamSlice slice = slices.get(teamId);
+            if (!membersByTeam.containsKey(teamId)) {
+                slices.remove(teamId);
+            } else if (slice == null || entry.getValue().size() > RESORT_THRESHOLD) {
+                slices.put(teamId, slice(teamId));
+            } else {
+                for (Object edit : entry.getValue()) {
+                    if (edit instanceof Row) {
+                        Row row = (Row) edit;
+                        slice = slice.with(row.memberId, row.name, row.age);
+                    } else {
+                        Row old = ((Removal) edit).row;
+                        slice = slice.without(old.memberId, old.age);
+                    }
+                }
+                slices.put(teamId, slice);
+            }
+        }
+        for (Long teamId : renamedTeams) {
+            TeamSlice slice = slices.get(teamId);
+            if (slice != null) {
+                slices.put(teamId, slice.rename(teamNames.get(teamId)));
+            }
+        }
+    }
+
+    private void put(Row row) {
+        rows.put(row.memberId, row);
+        membersByTeam.computeIfAbsent(row.teamId, key -> new HashSet<>()).add(row.memberId);
+    }
+
+    private void remove(Row row) {
+        rows.remove(row.memberId);
+        Set<Long> members = membersByTeam.get(row.teamId);
+        if (members != null) {
+            members.remove(row.memberId);
+            if (members.isEmpty()) {
+                membersByTeam.remove(row.teamId);
+            }
+        }
+    }
+
+    private TeamSlice slice(long teamId) {
+        List<Row> members = new ArrayList<>();
+        for (Long memberId : membersByTeam.get(teamId)) {
+            members.add(rows.get(memberId));
+        }
+        members.sort(Comparator.comparingInt((Row row) -> row.age).thenComparingLong(row -> row.memberId));
+
+        int[] ages = new int[members.size()];
+        long[] memberIds = new long[members.size()];
+        String[] names = new String[members.size()];
+        for (int i = 0; i < members.size(); i++) {
+            Row row = members.get(i);
+            ages[i] = row.age;
+            memberIds[i] = row.memberId;
+            names[i] = row.name;
+        }
+        return teamId == NO_TEAM
+                ? new TeamSlice(null, null, ages, memberIds, names)
+                : new TeamSlice(teamId, teamNames.get(teamId), ages, memberIds, names);
+    }
+
+    private void publish(Map<Long, TeamSlice> slices) {
+        snapshot = new Snapshot(slices);
+    }
+
+    // ---- hibernate 이벤트 ----
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event, event.getEntity(), event.getId(), event.getPersister(), event.getState());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        changed(event, event.getEntity(), event.getId(), event.getPersister(), event.getState());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            record(new RemovedMember((Long) event.getId()));
+        } else if (event.getEntity() instanceof Team) {
+            record(new TeamName((Long) event.getId(), null));
+        }
+    }
+
+    private void changed(AbstractEvent event, Object entity, Object id, EntityPersister persister, Object[] state) {
+        if (entity instanceof Member) {
+            Object team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+            //준영속 Team(먼저 읽어둔 팀으로 save)은 영속성 컨텍스트에 없으므로 엔티티에서 id를 읽는다.
+            Object teamId = ForeignKeys.getEntityIdentifierIfNotUnsaved(Team.class.getName(), team, event.getSession());
+            record(new Row((Long) id,
+                    (String) state[persister.getEntityMetamodel().getPropertyIndex("name")],
+                    (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")],
+                    teamId == null ? NO_TEAM : (Long) teamId));
+        } else if (entity instanceof Team) {
+            record(new TeamName((Long) id, (String) state[persister.getEntityMetamodel().getPropertyIndex("name")]));
+        }
+    }
+
+    /**
+     * 엔티티 이벤트 밖에서 나간 members / team 쓰기 = bulk 연산
+     * */
+    @Override
+    public void onStatement(String sql) {
+        if (EntityWriteTracker.inEntityWrite()) {
+            return;
+        }
+        String table = SqlStatements.writeTarget(sql);
+        if (DataVersion.MEMBERS.equals(table) || DataVersion.TEAM.equals(table)) {
+            Changes changes = currentChanges();
+            if (changes == null) {
+                invalidate();
+            } else {
+                changes.rebuild = true;
+            }
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void record(Object change) {
+        Changes changes = currentChanges();
+        if (changes == null) {
+            apply(List.of(change)); //트랜잭션 밖(auto commit)이면 바로 반영
+        } else {
+            changes.list.add(change);
+        }
+    }
+
+    private Changes currentChanges() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        //REQUIRES_NEW로 바깥 트랜잭션이 보류되면 바깥의 synchronization은 여기 보이지 않는다.
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Changes) {
+                return (Changes) synchronization;
+            }
+        }
+        Changes changes = new Changes();
+        TransactionSynchronizationManager.registerSynchronization(changes);
+        return changes;
+    }
+
+    @Override
+    public void destroy() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * 트랜잭션 하나에서 생긴 변경. 커밋되면 반영하고 롤백되면 버린다.
+     * 동시에 커밋된 트랜잭션끼리는 afterCommit이 불린 순서대로 반영된다. (어긋나면 scheduledResync가 맞춘다)
+     * */
+    private class Changes implements TransactionSynchronization {
+        private final List<Object> list = new ArrayList<>();
+        private boolean rebuild;
+
+        @Override
+        public void afterCommit() {
+            if (rebuild) {
+                invalidate();
+            } else if (!list.isEmpty()) {
+                apply(list);
+            }
+        }
+    }
+
+    private static final class Row {
+        private final long memberId;
+        private final String name;
+        private final int age;
+        private final long teamId;
+
+        Row(long memberId, String name, int age, long teamId) {
+            this.memberId = memberId;
+            this.name = name;
+            this.age = age;
+            this.teamId = teamId;
+        }
+    }
+
+    /** applyTo 안에서 팀 배열에서 뺄 회원 (바뀌기 전 값) */
+    private static final class Removal {
+        private final Row row;
+
+        Removal(Row row) {
+            this.row = row;
+        }
+    }
+
+    private static final class RemovedMember {
+        private final long memberId;
+
+        RemovedMember(long memberId) {
+            this.memberId = memberId;
+        }
+    }
+
+    private static final class TeamName {
+        private final long teamId;
+        private final String name; //null이면 삭제
+
+        TeamName(long teamId, String name) {
+            this.teamId = teamId;
+            this.name = name;
+        }
+    }
+
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(Collections.emptyMap());
+
+        final Map<Long, TeamSlice> byTeamId;
+        final List<TeamSlice> slices;
+        final Map<String, List<TeamSlice>> byTeamName;
+        final int size;
+
+        Snapshot(Map<Long, TeamSlice> byTeamId) {
+            this.byTeamId = Collections.unmodifiableMap(new TreeMap<>(byTeamId)); //팀 id 순 (팀 없음 = 0 이 먼저)
+            this.slices = new ArrayList<>(this.byTeamId.values());
+            Map<String, List<TeamSlice>> byName = new LinkedHashMap<>();
+            int total = 0;
+            for (TeamSlice slice : slices) {
+                if (slice.teamName != null) {
+                    byName.computeIfAbsent(slice.teamName, key -> new ArrayList<>()).add(slice);
+                }
+                total += slice.size();
+            }
+            this.byTeamName = byName;
+            this.size = total;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.querydsl.readmodel;
+
+import com.example.querydsl.dto.InvalidSearchRequestException;
+import com.example.querydsl.dto.MemberCursor;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberSlice;
+import com.example.querydsl.dto.MemberSortKey;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.repository.MemberRepositoryCustom;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * MemberRepositoryCustom을 MemberReadModel로 구현. 쿼리도 count도 없다.
+ * 페이지는 팀별 정렬 배열을 병합해서 필요한 만큼만 읽는다. (MemberReadModel.searchPage / searchSlice)
+ * */
+class MemberReadModelRepository implements MemberRepositoryCustom {
+
+    private final MemberReadModel readModel;
+
+    MemberReadModelRepository(MemberReadModel readModel) {
+        this.readModel = readModel;
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return readModel.search(condition);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return readModel.searchPage(condition, pageable);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return searchPageSimple(condition, pageable); //total이 공짜라 count를 따로 최적화할 필요가 없다.
+    }
+
+    @Override
+    public MemberSlice searchSlice(MemberSearchCondition condition, MemberSortKey sortKey, String after, int size) {
+        MemberSlice.checkSize(size);
+        MemberCursor cursor = after != null ? MemberCursor.decode(after) : null;
+        if (cursor != null && cursor.getSortKey() != sortKey) {
+            throw new InvalidSearchRequestException("커서의 정렬키(" + cursor.getSortKey() + ")와 요청한 정렬키(" + sortKey + ")가 다릅니다.");
+        }
+
+        List<MemberTeamDto> content = readModel.searchSlice(condition, sortKey, cursor, size + 1);
+        if (content.size() <= size) {
+            return new MemberSlice(content, null);
+        }
+        content = content.subList(0, size);
+        return new MemberSlice(content, MemberCursor.of(sortKey, content.get(size - 1)).encode());
+    }
+}
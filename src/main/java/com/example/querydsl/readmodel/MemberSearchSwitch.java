@@ -0,0 +1,42 @@
+package com.example.querydsl.readmodel;
+
+import com.example.querydsl.dto.MemberColumns;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.repository.MemberRepositoryCustom;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * 검색을 어디서 할지 고른다.
+ * 읽기 모델이 켜져 있고 다 읽어둔 상태면 메모리, 아니면(꺼짐 / 처음 로딩 중 / bulk 변경 후 다시 읽는 중) 호출하는 쪽이 DB로 조회한다.
+ * */
+@Component
+public class MemberSearchSwitch {
+
+    private final MemberReadModel readModel;
+    private final MemberReadModelRepository readModelRepository;
+
+    public MemberSearchSwitch(ObjectProvider<MemberReadModel> readModel) {
+        this.readModel = readModel.getIfAvailable();
+        this.readModelRepository = this.readModel == null ? null : new MemberReadModelRepository(this.readModel);
+    }
+
+    public Optional<MemberRepositoryCustom> readModel() {
+        if (readModel != null && readModel.isReady()) {
+            return Optional.of(readModelRepository);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 컬럼 형식(MemberColumns)은 읽기 모델 배열에서 바로 채운다.
+     * */
+    public Optional<MemberColumns> searchColumns(MemberSearchCondition condition) {
+        if (readModel != null && readModel.isReady()) {
+            return Optional.of(readModel.searchColumns(condition));
+        }
+        return Optional.empty();
+    }
+}
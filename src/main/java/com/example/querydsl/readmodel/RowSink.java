@@ -0,0 +1,9 @@
+package com.example.querydsl.readmodel;
+
+/**
+ * TeamSlice가 찾은 행을 받는 쪽. (MemberTeamDto List, MemberColumns)
+ * */
+@FunctionalInterface
+interface RowSink {
+    void add(long memberId, String name, int age, Long teamId, String teamName);
+}
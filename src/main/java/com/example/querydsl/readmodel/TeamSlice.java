@@ -0,0 +1,257 @@
+package com.example.querydsl.readmodel;
+
+import com.example.querydsl.dto.MemberCursor;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.NameMatch;
+
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * 한 팀의 회원들. (age, member_id) 순으로 정렬된 배열 세개를 같은 인덱스로 본다.
+ * 만들어진 뒤에는 바뀌지 않는다. (변경되면 MemberReadModel이 새 TeamSlice로 교체)
+ * 한 명씩 바뀔 때는 with / without이 이진 탐색한 위치에 끼우거나 빼서 배열 복사 한번으로 새 TeamSlice를 만든다.
+ * byId는 member_id 순으로 본 배열 위치라서 ID 순 페이지도 정렬 없이 이어서 읽는다.
+ * */
+final class TeamSlice {
+
+    final Long teamId;     //팀이 없는 회원들은 null
+    final String teamName;
+    final int[] ages;
+    final long[] memberIds;
+    final String[] names;
+    private final int[] byId;
+
+    TeamSlice(Long teamId, String teamName, int[] ages, long[] memberIds, String[] names) {
+        this(teamId, teamName, ages, memberIds, names, IntStream.range(0, memberIds.length)
+                .boxed()
+                .sorted(Comparator.comparingLong(i -> memberIds[i]))
+                .mapToInt(Integer::intValue)
+                .toArray());
+    }
+
+    private TeamSlice(Long teamId, String teamName, int[] ages, long[] memberIds, String[] names, int[] byId) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.ages = ages;
+        this.memberIds = memberIds;
+        this.names = names;
+        this.byId = byId;
+    }
+
+    TeamSlice rename(String newName) {
+        return new TeamSlice(teamId, newName, ages, memberIds, names, byId);
+    }
+
+    int size() {
+        return ages.length;
+    }
+
+    /** 한 명을 (age, member_id) 순서 위치에 끼운 새 TeamSlice */
+    TeamSlice with(long memberId, String name, int age) {
+        int length = ages.length;
+        int at = position(age, memberId);
+        int[] newAges = inserted(ages, length, at, new int[length + 1]);
+        long[] newMemberIds = inserted(memberIds, length, at, new long[length + 1]);
+        String[] newNames = inserted(names, length, at, new String[length + 1]);
+        newAges[at] = age;
+        newMemberIds[at] = memberId;
+        newNames[at] = name;
+
+        int idAt = idPosition(memberId);
+        int[] newById = inserted(byId, length, idAt, new int[length + 1]);
+        for (int j = 0; j < newById.length; j++) {
+            if (newById[j] >= at) {
+                newById[j]++; //뒤로 밀린 위치
+            }
+        }
+        newById[idAt] = at;
+        return new TeamSlice(teamId, teamName, newAges, newMemberIds, newNames, newById);
+    }
+
+    /** 한 명을 뺀 새 TeamSlice. 없으면 this */
+    TeamSlice without(long memberId, int age) {
+        int length = ages.length;
+        int at = position(age, memberId);
+        if (at == length || memberIds[at] != memberId) {
+            return this;
+        }
+        int[] newById = removed(byId, length, idPosition(memberId), new int[length - 1]);
+        for (int j = 0; j < newById.length; j++) {
+            if (newById[j] > at) {
+                newById[j]--; //앞으로 당겨진 위치
+            }
+        }
+        return new TeamSlice(teamId, teamName,
+                removed(ages, length, at, new int[length - 1]),
+                removed(memberIds, length, at, new long[length - 1]),
+                removed(names, length, at, new String[length - 1]),
+                newById);
+    }
+
+    /** 조건에 맞는 수. 이름 조건이 없으면 나이 범위만 자르고 끝 */
+    int count(MemberSearchCondition condition) {
+        int from = condition.getAgeGoe() == null ? 0 : lowerBound(condition.getAgeGoe());
+        int to = condition.getAgeLoe() == null ? ages.length : lowerBound((long) condition.getAgeLoe() + 1);
+        if (condition.getName() == null) {
+            return Math.max(0, to - from);
+        }
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (nameMatches(names[i], condition.getName(), condition.getNameMatch())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** (age, member_id) 순으로 after 다음부터 */
+    Scan scanByAge(MemberSearchCondition condition, MemberCursor after) {
+        int from = condition.getAgeGoe() == null ? 0 : lowerBound(condition.getAgeGoe());
+        if (after != null) {
+            from = Math.max(from, position(after.getAge(), after.getMemberId() + 1));
+        }
+        int to = condition.getAgeLoe() == null ? ages.length : lowerBound((long) condition.getAgeLoe() + 1);
+        return new Scan(condition, false, from, to);
+    }
+
+    /** member_id 순으로 after 다음부터. 나이 범위는 한 행씩 확인한다. */
+    Scan scanById(MemberSearchCondition condition, MemberCursor after) {
+        return new Scan(condition, true, after == null ? 0 : idPosition(after.getMemberId() + 1), ages.length);
+    }
+
+    /**
+     * 나이 범위는 이진 탐색으로 자르고, 이름 조건은 그 안에서만 확인한다.
+     * */
+    void collect(MemberSearchCondition condition, RowSink result) {
+        int from = condition.getAgeGoe() == null ? 0 : lowerBound(condition.getAgeGoe());
+        int to = condition.getAgeLoe() == null ? ages.length : lowerBound((long) condition.getAgeLoe() + 1);
+        for (int i = from; i < to; i++) {
+            if (nameMatches(names[i], condition.getName(), condition.getNameMatch())) {
+                result.add(memberIds[i], names[i], ages[i], teamId, teamName);
+            }
+        }
+    }
+
+    /** (age, memberId) 이상인 첫 위치 */
+    private int position(int age, long memberId) {
+        int low = 0;
+        int high = ages.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ages[mid] < age || (ages[mid] == age && memberIds[mid] < memberId)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** byId에서 member_id가 memberId 이상인 첫 위치 */
+    private int idPosition(long memberId) {
+        int low = 0;
+        int high = byId.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (memberIds[byId[mid]] < memberId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private boolean matches(int i, MemberSearchCondition condition) {
+        return (condition.getAgeGoe() == null || ages[i] >= condition.getAgeGoe())
+                && (condition.getAgeLoe() == null || ages[i] <= condition.getAgeLoe())
+                && nameMatches(names[i], condition.getName(), condition.getNameMatch());
+    }
+
+    private static <T> T inserted(T source, int length, int at, T target) {
+        System.arraycopy(source, 0, target, 0, at);
+        System.arraycopy(source, at, target, at + 1, length - at);
+        return target;
+    }
+
+    private static <T> T removed(T source, int length, int at, T target) {
+        System.arraycopy(source, 0, target, 0, at);
+        System.arraycopy(source, at + 1, target, at, length - at - 1);
+        return target;
+    }
+
+    /** age 이상인 첫 위치 */
+    private int lowerBound(long age) {
+        int low = 0;
+        int high = ages.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ages[mid] < age) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean nameMatches(String name, String expected, NameMatch match) {
+        if (expected == null) {
+            return true;
+        }
+        if (name == null) {
+            return false;
+        }
+        if (match == NameMatch.PREFIX) {
+            return name.startsWith(expected);
+        }
+        if (match == NameMatch.CONTAINS) {
+            return name.contains(expected);
+        }
+        return name.equals(expected);
+    }
+
+    /**
+     * 정렬 순서대로 조건에 맞는 행을 하나씩 본다. (MemberReadModel이 팀끼리 병합할 때)
+     * */
+    final class Scan {
+        private final MemberSearchCondition condition;
+        private final boolean idOrder;
+        private final int end;
+        private int next;
+        private int current;
+
+        private Scan(MemberSearchCondition condition, boolean idOrder, int from, int end) {
+            this.condition = condition;
+            this.idOrder = idOrder;
+            this.next = from;
+            this.end = end;
+        }
+
+        /** 다음 행으로. 없으면 false */
+        boolean advance() {
+            while (next < end) {
+                int i = idOrder ? byId[next++] : next++;
+                if (matches(i, condition)) {
+                    current = i;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int age() {
+            return ages[current];
+        }
+
+        long memberId() {
+            return memberIds[current];
+        }
+
+        MemberTeamDto toDto() {
+            return new MemberTeamDto(memberIds[current], names[current], ages[current], teamId, teamName);
+        }
+    }
+}
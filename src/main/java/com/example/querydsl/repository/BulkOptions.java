@@ -0,0 +1,23 @@
+package com.example.querydsl.repository;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * chunkSize : 한 트랜잭션에서 처리할 최대 row 수
+ * pause     : chunk 사이에 쉬는 시간 (다른 트랜잭션에 락/IO를 양보)
+ * progress  : chunk가 끝날때마다 호출
+ * */
+@Value
+@Builder
+public class BulkOptions {
+    @Builder.Default
+    int chunkSize = 1000;
+    @Builder.Default
+    Duration pause = Duration.ZERO;
+    @Builder.Default
+    Consumer<BulkProgress> progress = progress -> {};
+}
@@ -0,0 +1,14 @@
+package com.example.querydsl.repository;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class BulkProgress {
+    long chunks;
+    long affectedRows;
+    Long lastId;     //마지막으로 커밋된 chunk의 id 상한. 중단됐다면 여기서부터 다시 시작하면 된다.
+    Duration elapsed;
+    boolean done;    //false면 중간에 인터럽트로 멈춘 것
+}
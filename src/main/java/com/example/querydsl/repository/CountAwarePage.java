@@ -0,0 +1,33 @@
+package com.example.querydsl.repository;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * count 쿼리가 제한시간 안에 끝나지 않으면 total을 모르는 채로 페이지를 돌려준다.
+ * 이때 total은 "최소 이만큼은 있다"는 하한값(offset + content 크기, 꽉 찬 페이지면 +1)이고 totalKnown = false
+ * */
+public class CountAwarePage<T> extends PageImpl<T> {
+
+    private final boolean totalKnown;
+
+    private CountAwarePage(List<T> content, Pageable pageable, long total, boolean totalKnown) {
+        super(content, pageable, total);
+        this.totalKnown = totalKnown;
+    }
+
+    public static <T> CountAwarePage<T> known(List<T> content, Pageable pageable, long total) {
+        return new CountAwarePage<>(content, pageable, total, true);
+    }
+
+    public static <T> CountAwarePage<T> unknown(List<T> content, Pageable pageable) {
+        long lowerBound = pageable.getOffset() + content.size() + (content.size() == pageable.getPageSize() ? 1 : 0);
+        return new CountAwarePage<>(content, pageable, lowerBound, false);
+    }
+
+    public boolean isTotalKnown() {
+        return totalKnown;
+    }
+}
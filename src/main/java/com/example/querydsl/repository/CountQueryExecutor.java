@@ -0,0 +1,111 @@
+package com.example.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 페이징 count 쿼리를 content 쿼리와 동시에 돌리기 위한 전용 스레드풀.
+ *
+ * count는 별도 스레드에서 자기만의 읽기전용 트랜잭션(=별도 커넥션, READ_COMMITTED)으로 실행된다.
+ * 그래서 호출한 쪽 트랜잭션의 커밋 안된 변경은 보이지 않는다. -> 그런 경우엔 호출하는 쪽에서 순차 실행해야 한다.
+ * 풀/큐가 꽉 찼거나 timeout 안에 끝나지 않으면 total을 모르는 것으로 처리한다. (페이지 응답을 막지 않는다)
+ *
+ * 취소(Future.cancel(true))는 큐에서 기다리는 count는 실행되지 않게 하지만, 이미 실행중인 count는 스레드 인터럽트뿐이다.
+ * 인터럽트로는 JDBC 문장이 멈추지 않으므로, 실행중인 count는 끝나거나 트랜잭션 timeout(timeout + 1초, 초 단위 올림)이
+ * 쿼리 timeout으로 걸려서 끊길 때까지 스레드와 커넥션을 붙잡는다. 풀 크기는 이 시간을 감안해서 잡는다.
+ * */
+@Slf4j
+@Component
+public class CountQueryExecutor implements DisposableBean {
+
+    private final boolean enabled;
+    private final Duration timeout;
+    private final ThreadPoolExecutor executor;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public CountQueryExecutor(PlatformTransactionManager transactionManager,
+                              @Value("${member.paging.parallel-count.enabled:false}") boolean enabled,
+                              @Value("${member.paging.parallel-count.timeout:500ms}") Duration timeout,
+                              @Value("${member.paging.parallel-count.threads:4}") int threads,
+                              @Value("${member.paging.parallel-count.queue-size:100}") int queueSize) {
+        this.enabled = enabled;
+        this.timeout = timeout;
+
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "count-query-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readOnlyTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        //취소해도 실행중인 JDBC 문장은 안 멈추므로, 트랜잭션 timeout(-> 쿼리 timeout)으로 커넥션을 풀어준다.
+        readOnlyTransaction.setTimeout((int) Math.max(1, timeout.toSeconds() + 1));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return 풀이 꽉 차서 받을 수 없으면 null
+     * */
+    public Future<Long> submit(Supplier<Long> countQuery) {
+        try {
+            return executor.submit(() -> readOnlyTransaction.execute(status -> countQuery.get()));
+        } catch (RejectedExecutionException e) {
+            log.debug("count executor is full, total will be unknown");
+            return null;
+        }
+    }
+
+    /**
+     * submit 시점부터 timeout 까지 기다린다. 시간 안에 못 받으면 취소하고 null
+     * (실행중이던 count는 트랜잭션 timeout까지 계속 돌 수 있다)
+     * */
+    public Long await(Future<Long> count, long submittedAtNanos) {
+        if (count == null) {
+            return null;
+        }
+        long remaining = timeout.toNanos() - (System.nanoTime() - submittedAtNanos);
+        try {
+            return count.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | CancellationException e) {
+            count.cancel(true);
+            return null;
+        } catch (InterruptedException e) {
+            count.cancel(true);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            log.warn("count query failed, total will be unknown", e.getCause());
+            return null;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.querydsl.repository;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 벌크 update의 set 절 목록.
+ * MemberAssignments.create().set(member.age, member.age.add(1)).set(member.name, "x")
+ * */
+public class MemberAssignments {
+
+    private final Map<Path<?>, Expression<?>> assignments = new LinkedHashMap<>();
+
+    private MemberAssignments() {
+    }
+
+    public static MemberAssignments create() {
+        return new MemberAssignments();
+    }
+
+    public <T> MemberAssignments set(Path<T> path, T value) {
+        assignments.put(path, Expressions.constant(value));
+        return this;
+    }
+
+    public <T> MemberAssignments set(Path<T> path, Expression<? extends T> expression) {
+        assignments.put(path, expression);
+        return this;
+    }
+
+    public boolean contains(Path<?> path) {
+        return assignments.containsKey(path);
+    }
+
+    public boolean isEmpty() {
+        return assignments.isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    JPAUpdateClause applyTo(JPAUpdateClause clause) {
+        assignments.forEach((path, expression) -> clause.set((Path<Object>) path, (Expression<Object>) expression));
+        return clause;
+    }
+}
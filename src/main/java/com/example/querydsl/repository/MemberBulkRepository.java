@@ -0,0 +1,175 @@
+package com.example.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+import static com.example.querydsl.entity.QMember.*;
+
+/**
+ * 큰 테이블 벌크 update / delete 를 id 구간(chunk)으로 나눠서 chunk마다 커밋한다.
+ * 한 문장으로 전체를 바꾸면 긴 트랜잭션 동안 row 락과 undo 로그를 붙잡고 있게 된다.
+ *
+ * chunk 구간은 조건에 맞는 row를 id 순으로 chunkSize개 세어서 정한다. (id가 듬성듬성해도 chunk 크기가 일정)
+ * chunk마다 영속성 컨텍스트를 비우므로 호출한 쪽에서 em.flush() / em.clear()를 할 필요가 없다.
+ *
+ * 주의)
+ *  - chunk마다 커밋하므로 트랜잭션 밖에서 호출해야 한다. 중간에 실패하면 앞의 chunk는 이미 반영되어 있다.
+ *  - JPQL update/delete는 조인이 안되므로 predicate는 member 자신의 컬럼(또는 서브쿼리)으로 작성한다.
+ *  - 엔티티 이벤트가 없으므로 이름을 바꾸거나 지운 chunk는 이름 gram 인덱스를 직접 다시 만든다. (MemberNameGrams)
+ *  - auditing도 안되므로 update는 lastModifiedDate를 직접 넣고, delete는 tombstone을 남긴다. (변경 피드용)
+ * */
+@Slf4j
+@Repository
+public class MemberBulkRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate chunkTransaction;
+    private final BulkOptions defaultOptions;
+
+    public MemberBulkRepository(EntityManager em, JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                                @Value("${member.bulk.chunk-size:1000}") int chunkSize,
+                                @Value("${member.bulk.pause:0ms}") Duration pause) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.defaultOptions = BulkOptions.builder().chunkSize(chunkSize).pause(pause).build();
+    }
+
+    public BulkProgress update(Predicate predicate, MemberAssignments assignments) {
+        return update(predicate, assignments, defaultOptions);
+    }
+
+    public BulkProgress update(Predicate predicate, MemberAssignments assignments, BulkOptions options) {
+        Assert.isTrue(!assignments.isEmpty(), "assignments must not be empty");
+        boolean touch = !assignments.contains(member.lastModifiedDate);
+        return inChunks("update", predicate, options, assignments.contains(member.name),
+                range -> {
+                    JPAUpdateClause update = assignments.applyTo(queryFactory.update(member).where(predicate, range));
+                    if (touch) {
+                        update.set(member.lastModifiedDate, LocalDateTime.now());
+                    }
+                    return update.execute();
+                });
+    }
+
+    public BulkProgress delete(Predicate predicate) {
+        return delete(predicate, defaultOptions);
+    }
+
+    public BulkProgress delete(Predicate predicate, BulkOptions options) {
+        return inChunks("delete", predicate, options, true,
+                range -> {
+                    List<Long> ids = queryFactory.select(member.id).from(member).where(predicate, range).fetch();
+                    if (ids.isEmpty()) {
+                        return 0L;
+                    }
+                    em.unwrap(Session.class).doWork(connection -> MemberTombstones.record(connection, ids));
+                    return queryFactory.delete(member).where(member.id.in(ids)).execute();
+                });
+    }
+
+    private BulkProgress inChunks(String operation, Predicate predicate, BulkOptions options, boolean reindexNames,
+                                  Function<BooleanExpression, Long> statement) {
+        Assert.state(!TransactionSynchronizationManager.isActualTransactionActive(),
+                "chunked bulk " + operation + " commits per chunk and must be called outside a transaction");
+        Assert.isTrue(options.getChunkSize() > 0, "chunkSize must be positive");
+
+        long startedAt = System.nanoTime();
+        long chunks = 0;
+        long affectedRows = 0;
+        Long lastId = null;
+
+        while (true) {
+            Long fromId = lastId;
+            long[] chunk = chunkTransaction.execute(status -> {
+                Long upperId = upperId(predicate, fromId, options.getChunkSize());
+                if (upperId == null) {
+                    return null;
+                }
+                long affected = statement.apply(idGt(fromId).and(member.id.loe(upperId)));
+                if (reindexNames && affected > 0) {
+                    long from = fromId == null ? Long.MIN_VALUE : fromId;
+                    em.unwrap(Session.class).doWork(connection -> MemberNameGrams.reindex(connection, from, upperId));
+                }
+                em.clear(); //벌크 연산은 영속성 컨텍스트를 거치지 않으므로 남아있는 엔티티는 옛 값이다.
+                return new long[]{upperId, affected};
+            });
+            if (chunk == null) {
+                break;
+            }
+
+            lastId = chunk[0];
+            chunks++;
+            affectedRows += chunk[1];
+            BulkProgress progress = new BulkProgress(chunks, affectedRows, lastId, elapsed(startedAt), false);
+            log.info("bulk {} chunk {} : {} rows (total {}), id <= {}", operation, chunks, chunk[1], affectedRows, lastId);
+            options.getProgress().accept(progress);
+
+            if (!options.getPause().isZero() && !pause(options.getPause())) {
+                log.warn("bulk {} interrupted after {} rows, resume after id {}", operation, affectedRows, lastId);
+                return progress;
+            }
+        }
+
+        log.info("bulk {} done : {} rows in {} chunks, {} ms", operation, affectedRows, chunks, elapsed(startedAt).toMillis());
+        return new BulkProgress(chunks, affectedRows, lastId, elapsed(startedAt), true);
+    }
+
+    /**
+     * fromId 다음부터 조건에 맞는 chunkSize번째 id. 남은게 chunkSize보다 적으면 남은 것 중 최대 id
+     * */
+    private Long upperId(Predicate predicate, Long fromId, int chunkSize) {
+        Long upperId = queryFactory
+                .select(member.id)
+                .from(member)
+                .where(predicate, idGt(fromId))
+                .orderBy(member.id.asc())
+                .offset(chunkSize - 1)
+                .fetchFirst();
+        if (upperId != null) {
+            return upperId;
+        }
+        return queryFactory
+                .select(member.id.max())
+                .from(member)
+                .where(predicate, idGt(fromId))
+                .fetchOne();
+    }
+
+    private BooleanExpression idGt(Long fromId) {
+        return fromId == null ? member.id.isNotNull() : member.id.gt(fromId);
+    }
+
+    private static boolean pause(Duration pause) {
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Duration elapsed(long startedAt) {
+        return Duration.ofNanos(System.nanoTime() - startedAt);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.dto.MemberChange;
+import com.example.querydsl.dto.MemberChangeCursor;
+import com.example.querydsl.dto.MemberChanges;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.DateTimePath;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QMemberTombstone.memberTombstone;
+
+/**
+ * 회원 변경 피드. (lastModifiedDate, member_id) 커서 다음의 변경을 size건씩 준다.
+ *  - 수정 / 추가 : members (idx_members_modified_id)
+ *  - 삭제 : member_tombstone (idx_member_tombstone_deleted_id)
+ * 두 쪽을 각각 커서 다음부터 size + 1건 읽어서 (시각, id) 순으로 합친다. 읽는 양은 테이블 크기가 아니라 변경량에 비례한다.
+ *
+ * 시각은 커밋이 아니라 쓰는 시점의 값이라, 늦게 커밋된 트랜잭션의 변경이 이미 지나간 커서 앞에 나타날 수 있다.
+ * 그래서 settle-delay보다 오래된 변경만 내려준다. (트랜잭션이 그보다 길면 놓칠 수 있다)
+ * 벌크 update / delete는 MemberBulkRepository로 해야 피드에 잡힌다. (lastModifiedDate / tombstone을 남김)
+ * */
+@Repository
+public class MemberChangeFeed {
+
+    private static final Comparator<MemberChange> ORDER =
+            Comparator.comparing(MemberChange::getChangedAt).thenComparing(MemberChange::getMemberId);
+
+    private final JPAQueryFactory queryFactory;
+    private final Duration settleDelay;
+
+    public MemberChangeFeed(JPAQueryFactory queryFactory, @Value("${member.changes.settle-delay:5s}") Duration settleDelay) {
+        this.queryFactory = queryFactory;
+        this.settleDelay = settleDelay;
+    }
+
+    @Transactional(readOnly = true)
+    public MemberChanges changesSince(String after, int size) {
+        MemberChangeCursor cursor = after != null ? MemberChangeCursor.decode(after) : null;
+        LocalDateTime settledBefore = LocalDateTime.now().minus(settleDelay);
+
+        List<MemberChange> changes = new ArrayList<>();
+        for (Tuple row : queryFactory
+                .select(member.id, member.name, member.age, member.team().id, member.lastModifiedDate)
+                .from(member)
+                .where(member.lastModifiedDate.lt(settledBefore), after(member.lastModifiedDate, member.id, cursor))
+                .orderBy(member.lastModifiedDate.asc(), member.id.asc())
+                .limit(size + 1)
+                .fetch()) {
+            changes.add(MemberChange.upsert(row.get(member.id), row.get(member.name), row.get(member.age),
+                    row.get(member.team().id), row.get(member.lastModifiedDate)));
+        }
+        for (Tuple row : queryFactory
+                .select(memberTombstone.memberId, memberTombstone.deletedDate)
+                .from(memberTombstone)
+                .where(memberTombstone.deletedDate.lt(settledBefore),
+                        after(memberTombstone.deletedDate, memberTombstone.memberId, cursor))
+                .orderBy(memberTombstone.deletedDate.asc(), memberTombstone.memberId.asc())
+                .limit(size + 1)
+                .fetch()) {
+            changes.add(MemberChange.delete(row.get(memberTombstone.memberId), row.get(memberTombstone.deletedDate)));
+        }
+        changes.sort(ORDER);
+
+        boolean hasMore = changes.size() > size;
+        if (hasMore) {
+            changes = changes.subList(0, size);
+        }
+        String nextCursor = changes.isEmpty() ? after : MemberChangeCursor.of(changes.get(changes.size() - 1)).encode();
+        return new MemberChanges(changes, nextCursor, hasMore);
+    }
+
+    /**
+     * time > :time or (time = :time and id > :id)
+     * */
+    private static BooleanExpression after(DateTimePath<LocalDateTime> time, NumberPath<Long> id, MemberChangeCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        return time.gt(cursor.getChangedAt())
+                .or(time.eq(cursor.getChangedAt()).and(id.gt(cursor.getMemberId())));
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.dto.MemberIngestResult;
+import com.example.querydsl.dto.MemberIngestRow;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.sql.SqlStatementInspector;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.example.querydsl.entity.QTeam.*;
+
+/**
+ * 회원 벌크 등록. em.persist 반복(MemberSeeder, saveAll) 대신 JDBC batch insert로 넣는다.
+ *
+ * - 팀은 이름으로 한번에 조회하고, 없는 팀만 persist 한다. 팀 이름이 null이거나 공백뿐이면 팀 없음
+ * - id는 Member의 시퀀스 generator(pooled, allocationSize 50)에서 받는다. persist와 섞여도 id가 겹치지 않는다.
+ * - auditing 필드는 AuditingEntityListener와 같은 규칙으로 batch마다 한번 정한다.
+ *   (createdDate = lastModifiedDate = now, createdBy = LastModifiedBy = 현재 auditor. AuditorAware가 없으면 null)
+ * - 엔티티 이벤트가 없으므로 이름 gram은 직접 넣고, insert SQL을 SqlStatementInspector에 한번 흘려서
+ *   DataVersion / 읽기 모델 / 팀 통계가 hibernate 벌크 쓰기와 똑같이 반응하게 한다.
+ *
+ * 영속성 컨텍스트를 거치지 않으므로 같은 트랜잭션에서 이미 읽어둔 Member 목록에는 반영되지 않는다.
+ * */
+@Slf4j
+@Repository
+public class MemberIngestRepository {
+
+    private static final String INSERT = "insert into members"
+            + " (member_id, name, age, team_id, created_date, last_modified_date, created_by, last_modified_by)"
+            + " values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final SqlStatementInspector sqlStatementInspector;
+    private final ObjectProvider<AuditorAware<String>> auditorAware;
+    private final int batchSize;
+
+    public MemberIngestRepository(EntityManager em, JPAQueryFactory queryFactory, SqlStatementInspector sqlStatementInspector,
+                                  ObjectProvider<AuditorAware<String>> auditorAware,
+                                  @Value("${member.ingest.batch-size:1000}") int batchSize) {
+        Assert.isTrue(batchSize > 0, "batchSize must be positive");
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.sqlStatementInspector = sqlStatementInspector;
+        this.auditorAware = auditorAware;
+        this.batchSize = batchSize;
+    }
+
+    @Transactional
+    public MemberIngestResult saveAll(List<MemberIngestRow> rows) {
+        long start = System.nanoTime();
+        Map<String, Team> teams = new HashMap<>();
+        int teamsCreated = resolveTeams(rows, teams);
+
+        SharedSessionContractImplementor session = em.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator idGenerator = session.getFactory().getMetamodel()
+                .entityPersister(Member.class).getIdentifierGenerator();
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<MemberIngestRow> batch = rows.subList(from, Math.min(rows.size(), from + batchSize));
+            long[] batchIds = new long[batch.size()];
+            for (int i = 0; i < batchIds.length; i++) {
+                batchIds[i] = ((Number) idGenerator.generate(session, null)).longValue();
+                ids.add(batchIds[i]);
+            }
+            insertBatch(batch, batchIds, teams);
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        MemberIngestResult result = new MemberIngestResult(ids, teamsCreated, elapsedMillis);
+        log.info("member ingest : {} rows ({} new teams) in {} ms, {} rows/sec",
+                rows.size(), teamsCreated, elapsedMillis, result.getRowsPerSecond());
+        return result;
+    }
+
+    /**
+     * 이름이 같은 팀이 여럿이면 id가 작은 팀. 새로 만든 팀 수를 돌려준다.
+     * */
+    private int resolveTeams(List<MemberIngestRow> rows, Map<String, Team> teams) {
+        Set<String> names = rows.stream()
+                .map(MemberIngestRow::getTeamName)
+                .filter(StringUtils::hasText)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (names.isEmpty()) {
+            return 0;
+        }
+        for (Team found : queryFactory.selectFrom(team).where(team.name.in(names)).orderBy(team.id.asc()).fetch()) {
+            teams.putIfAbsent(found.getName(), found);
+        }
+        int created = 0;
+        for (String name : names) {
+            if (!teams.containsKey(name)) {
+                Team newTeam = new Team(name);
+                em.persist(newTeam);
+                teams.put(name, newTeam);
+                created++;
+            }
+        }
+        if (created > 0) {
+            em.flush(); //JDBC insert가 FK로 참조하므로 팀을 먼저 넣는다.
+        }
+        return created;
+    }
+
+    private void insertBatch(List<MemberIngestRow> batch, long[] ids, Map<String, Team> teams) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String auditor = currentAuditor();
+        List<String> names = batch.stream().map(MemberIngestRow::getName).collect(Collectors.toList());
+
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(sqlStatementInspector.inspect(INSERT))) {
+                for (int i = 0; i < ids.length; i++) {
+                    MemberIngestRow row = batch.get(i);
+                    insert.setLong(1, ids[i]);
+                    insert.setString(2, row.getName());
+                    insert.setInt(3, row.getAge());
+                    if (!StringUtils.hasText(row.getTeamName())) {
+                        insert.setNull(4, Types.BIGINT);
+                    } else {
+                        insert.setLong(4, teams.get(row.getTeamName()).getId());
+                    }
+                    insert.setTimestamp(5, now);
+                    insert.setTimestamp(6, now);
+                    insert.setString(7, auditor);
+                    insert.setString(8, auditor);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            MemberNameGrams.indexAll(connection, ids, names);
+        });
+    }
+
+    private String currentAuditor() {
+        AuditorAware<String> auditor = auditorAware.getIfAvailable();
+        return auditor == null ? null : auditor.getCurrentAuditor().orElse(null);
+    }
+}
@@ -1,23 +1,38 @@
 package com.example.querydsl.repository;
 
+import com.example.querydsl.cache.MemberSearchCache;
+import com.example.querydsl.dto.MemberColumns;
+import com.example.querydsl.dto.MemberField;
 import com.example.querydsl.dto.MemberSearchCondition;
 import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.NameMatch;
 import com.example.querydsl.dto.QMemberTeamDto;
 import com.example.querydsl.entity.Member;
 import com.example.querydsl.entity.QMember;
 import com.example.querydsl.entity.QTeam;
 import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.mysema.commons.lang.CloseableIterator;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static com.example.querydsl.entity.QMember.*;
 import static com.example.querydsl.entity.QTeam.*;
@@ -30,6 +45,8 @@ public class MemberJPARepository {
     @PersistenceContext
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchCache memberSearchCache;
+    private final MemberSearchTemplates memberSearchTemplates;
 
 
     /**
@@ -44,9 +61,12 @@ public class MemberJPARepository {
 //        this.queryFactory = new JPAQueryFactory(em);
 //    }
 
-    public MemberJPARepository(EntityManager em, JPAQueryFactory queryFactory) { //Bean으로 등록하고, 인젝션 받아서 사용하는것도 가능하다.
+    public MemberJPARepository(EntityManager em, JPAQueryFactory queryFactory, MemberSearchCache memberSearchCache,
+                               MemberSearchTemplates memberSearchTemplates) { //Bean으로 등록하고, 인젝션 받아서 사용하는것도 가능하다.
         this.em = em;
         this.queryFactory = queryFactory;
+        this.memberSearchCache = memberSearchCache;
+        this.memberSearchTemplates = memberSearchTemplates;
     }
 
     public void save(Member member){
@@ -54,25 +74,30 @@ public class MemberJPARepository {
     }
 
 
+    @Transactional(readOnly = true)
     public Optional<Member> findById(Long id){
         Member findById = em.find(Member.class, id);
         return Optional.ofNullable(findById);
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findAll(){
         return em.createQuery("select m from Member m", Member.class)
                 .getResultList();
     }
+    @Transactional(readOnly = true)
     public List<Member> findAll_Querydsl(){
         return queryFactory
                 .selectFrom(member)
                 .fetch();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findByName(String name){
         return em.createQuery("select m from Member m where m.name =:name", Member.class)
                 .getResultList();
     }
+    @Transactional(readOnly = true)
     public List<Member> findByName_Querydsl(String name){
         return queryFactory
                 .selectFrom(member)
@@ -85,10 +110,27 @@ public class MemberJPARepository {
      * 동적 쿼리 주의할점
      * 조건이 없으면 걍 다끌고 오기 때문에
      * 기본 조건을 하나정도는 주는게 좋다. (limit 등)*/
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition){
+        BooleanBuilder builder = searchPredicate(condition);
+        return memberSearchCache.get("searchByBuilder", condition, () -> queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.name,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team() , team)
+                .where(builder)
+                .fetch());
+    }
+
+    private BooleanBuilder searchPredicate(MemberSearchCondition condition){
         BooleanBuilder builder = new BooleanBuilder();
         if(hasText(condition.getName())){
-           builder.and(member.name.eq(condition.getName()));
+           builder.and(MemberNameGrams.nameMatches(condition.getName(), condition.getNameMatch()));
         }
         if(hasText(condition.getTeamName())){
             builder.and(team.name.eq(condition.getTeamName()));
@@ -99,7 +141,56 @@ public class MemberJPARepository {
         if(condition.getAgeLoe()!= null){
             builder.and(member.age.loe(condition.getAgeLoe()));
         }
-        return queryFactory
+        return builder;
+    }
+
+    /**
+     * searchByBuilder와 같은 조건으로 요청한 필드만 select 한다. (fields=memberId,name)
+     * team 조인은 teamName을 select 하거나 teamName 조건이 있을 때만 붙인다. (teamId는 members.team_id로 읽는다)
+     * 결과는 필드 이름 -> 값 Map. (MemberTeamDto 전용인 검색 캐시는 쓰지 않는다)
+     * */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> searchFields(MemberSearchCondition condition, Set<MemberField> fields){
+        List<MemberField> selected = new ArrayList<>(fields);
+        Expression<?>[] select = new Expression<?>[selected.size()];
+        for (int i = 0; i < select.length; i++) {
+            select[i] = path(selected.get(i));
+        }
+
+        JPAQuery<Tuple> query = queryFactory
+                .select(select)
+                .from(member);
+        if (hasText(condition.getTeamName())) {
+            query.join(member.team(), team); //team.name = ? 조건이면 team 없는 회원은 어차피 빠진다.
+        } else if (fields.contains(MemberField.TEAM_NAME)) {
+            query.leftJoin(member.team(), team);
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Tuple tuple : query.where(searchPredicate(condition)).fetch()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < select.length; i++) {
+                row.put(selected.get(i).fieldName(), tuple.get(i, Object.class));
+            }
+            result.add(row);
+        }
+        return result;
+    }
+
+    private static Expression<?> path(MemberField field) {
+        switch (field) {
+            case MEMBER_ID: return member.id;
+            case NAME: return member.name;
+            case AGE: return member.age;
+            case TEAM_ID: return member.team().id; //FK 컬럼 (조인 안함)
+            case TEAM_NAME: return team.name;
+            default: throw new IllegalArgumentException(field.name());
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> searchByWhereParam(MemberSearchCondition condition){
+        return memberSearchCache.get("searchByWhereParam", condition, () -> queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.name,
@@ -109,12 +200,37 @@ public class MemberJPARepository {
                 ))
                 .from(member)
                 .leftJoin(member.team() , team)
-                .where(builder)
-                .fetch();
+                .where(
+                        nameMatches(condition),
+                        teamNameEq(condition.getTeamName()),
+                        ageBetween(condition.getAgeGoe(), condition.getAgeLoe())
+                )
+                .fetch());
     }
 
-    public List<MemberTeamDto> searchByWhereParam(MemberSearchCondition condition){
-        return queryFactory
+    /**
+     * searchByWhereParam과 같은 결과를 미리 만들어둔 JPQL 템플릿으로 조회한다.
+     * 표현식 트리 생성 / JPQL 직렬화 비용이 없다.
+     * 템플릿은 이름 일치(EXACT)만 있으므로 앞부분/부분 일치는 searchByWhereParam으로 조회한다.
+     * */
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> searchByTemplate(MemberSearchCondition condition){
+        if (hasText(condition.getName()) && condition.getNameMatch() != null && condition.getNameMatch() != NameMatch.EXACT) {
+            return searchByWhereParam(condition);
+        }
+        return memberSearchCache.get("searchByTemplate", condition, () -> memberSearchTemplates.search(condition));
+    }
+
+    /**
+     * 결과를 List로 모으지 않고 한 건씩 consumer에게 넘긴다. (대용량 export 용)
+     * iterate()는 ScrollableResults(FORWARD_ONLY) 커서로 읽고, fetchSize 만큼씩만 JDBC 드라이버가 가져온다.
+     * 커서가 열려있는 동안 트랜잭션(커넥션)이 유지되어야 하므로 @Transactional 필요.
+     * dto 프로젝션이라 영속성 컨텍스트에 쌓이는 것이 없으므로 em.clear()는 하지 않는다. (호출자 / OSIV의 엔티티까지 분리된다)
+     * */
+    @Transactional(readOnly = true)
+    public long streamByWhereParam(MemberSearchCondition condition, int fetchSize, Consumer<MemberTeamDto> consumer){
+        long count = 0;
+        try (CloseableIterator<MemberTeamDto> rows = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.name,
@@ -125,18 +241,58 @@ public class MemberJPARepository {
                 .from(member)
                 .leftJoin(member.team() , team)
                 .where(
-                        nameEq(condition.getName()),
+                        nameMatches(condition),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()),
-                        ageBetween(condition.getAgeGoe(), condition.getAgeLoe())
+                        ageLoe(condition.getAgeLoe())
+                )
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .iterate()) {
+            while (rows.hasNext()) {
+                consumer.accept(rows.next());
+                count++;
+            }
+        }
+        return count;
+    }
 
+    /**
+     * searchByWhereParam과 같은 결과를 컬럼 배열로 받는다. (MemberColumns)
+     * 커서로 읽으면서 바로 배열에 채우므로 MemberTeamDto List를 만들지 않는다.
+     * 스칼라 프로젝션이라 영속성 컨텍스트에 쌓이는 것이 없으므로 em.clear()는 하지 않는다. (바깥 트랜잭션의 엔티티까지 분리된다)
+     * */
+    @Transactional(readOnly = true)
+    public MemberColumns searchColumns(MemberSearchCondition condition, int fetchSize){
+        MemberColumns.Builder columns = MemberColumns.builder();
+        try (CloseableIterator<Tuple> rows = queryFactory
+                .select(member.id, member.name, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team() , team)
+                .where(
+                        nameMatches(condition),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
                 )
-                .fetch();
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .iterate()) {
+            while (rows.hasNext()) {
+                Tuple row = rows.next();
+                columns.add(row.get(0, Long.class), row.get(1, String.class), row.get(2, Integer.class),
+                        row.get(3, Long.class), row.get(4, String.class));
+            }
+        }
+        return columns.build();
     }
 
-    private BooleanExpression ageBetween(int ageLoe, int ageGoe){
-        return ageGoe(ageGoe).and(ageLoe(ageLoe));
+    /** 한쪽만 있으면 그 조건만, 둘 다 없으면 null (where에서 무시) */
+    private BooleanExpression ageBetween(Integer ageGoe, Integer ageLoe){
+        BooleanExpression goe = ageGoe(ageGoe);
+        BooleanExpression loe = ageLoe(ageLoe);
+        if (goe == null) {
+            return loe;
+        }
+        return loe == null ? goe : goe.and(loe);
     }
 
     private BooleanExpression ageLoe(Integer ageLoe) {
@@ -152,8 +308,8 @@ public class MemberJPARepository {
         return hasText(teamName) ? team.name.eq(teamName) : null;
     }
 
-    private BooleanExpression nameEq(String name) {
-        return hasText(name) ? member.name.eq(name) : null;
+    private BooleanExpression nameMatches(MemberSearchCondition condition) {
+        return MemberNameGrams.nameMatches(condition.getName(), condition.getNameMatch());
     }
 
 }
@@ -0,0 +1,147 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.entity.Member;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.AutoFlushEvent;
+import org.hibernate.event.spi.AutoFlushEventListener;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Member insert / update(name 변경) / delete 때 member_name_gram을 같은 커넥션(트랜잭션)에서 갱신한다.
+ * 롤백되면 gram도 같이 롤백된다. (HibernateConfig에서 등록)
+ *
+ * 회원마다 따로 보내면 hibernate batch insert(batch_size 100) 한번에 gram 왕복이 100번 붙으므로,
+ * 한 flush에서 나온 변경을 모아뒀다가 flush가 끝날 때(기본 flush 리스너 다음) delete 한번 + insert 한번의 batch로 보낸다.
+ * auto flush 뒤에도 보내므로 같은 트랜잭션의 이름 검색은 gram을 본다.
+ * */
+@Component
+public class MemberNameGramListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        FlushEventListener, AutoFlushEventListener {
+
+    //post 이벤트는 flush 중에 같은 스레드에서 불린다.
+    private static final ThreadLocal<Pending> PENDING = new ThreadLocal<>();
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            pending(event.getSession()).index((Long) event.getId(), ((Member) event.getEntity()).getName());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member && nameChanged(event)) {
+            Pending pending = pending(event.getSession());
+            long memberId = (Long) event.getId();
+            pending.unindex(memberId);
+            pending.index(memberId, ((Member) event.getEntity()).getName());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            pending(event.getSession()).unindex((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onFlush(FlushEvent event) {
+        send(event.getSession());
+    }
+
+    @Override
+    public void onAutoFlush(AutoFlushEvent event) {
+        send(event.getSession());
+    }
+
+    private static Pending pending(EventSource session) {
+        Pending pending = PENDING.get();
+        if (pending == null || pending.session != session) {
+            pending = new Pending(session); //실패한 flush가 남긴 다른 세션의 변경은 버린다. (그 트랜잭션은 롤백된다)
+            PENDING.set(pending);
+        }
+        return pending;
+    }
+
+    private static void send(EventSource session) {
+        Pending pending = PENDING.get();
+        if (pending == null) {
+            return;
+        }
+        PENDING.remove();
+        if (pending.session != session || pending.isEmpty()) {
+            return;
+        }
+        long[] memberIds = pending.toIndex.keySet().stream().mapToLong(Long::longValue).toArray();
+        session.doWork(connection -> {
+            if (!pending.toUnindex.isEmpty()) {
+                MemberNameGrams.unindexAll(connection, pending.toUnindex);
+            }
+            if (memberIds.length > 0) {
+                MemberNameGrams.indexAll(connection, memberIds, new ArrayList<>(pending.toIndex.values()));
+            }
+        });
+    }
+
+    private static boolean nameChanged(PostUpdateEvent event) {
+        int[] dirty = event.getDirtyProperties();
+        if (dirty == null) {
+            return true; //변경 항목을 모르면(merge 등) 다시 만든다.
+        }
+        int nameIndex = event.getPersister().getEntityMetamodel().getPropertyIndex("name");
+        for (int index : dirty) {
+            if (index == nameIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 한 flush 동안 모은 변경. delete를 먼저 보내므로, 같은 flush 안에서 넣고 지운 회원은 넣을 목록에서 뺀다.
+     * */
+    private static final class Pending {
+        private final SessionImplementor session;
+        private final Set<Long> toUnindex = new LinkedHashSet<>();
+        private final Map<Long, String> toIndex = new LinkedHashMap<>();
+
+        private Pending(SessionImplementor session) {
+            this.session = session;
+        }
+
+        void index(long memberId, String name) {
+            toIndex.put(memberId, name);
+        }
+
+        void unindex(long memberId) {
+            toIndex.remove(memberId);
+            toUnindex.add(memberId);
+        }
+
+        boolean isEmpty() {
+            return toUnindex.isEmpty() && toIndex.isEmpty();
+        }
+    }
+}
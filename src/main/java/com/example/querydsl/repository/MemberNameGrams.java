@@ -0,0 +1,130 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.dto.NameMatch;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.example.querydsl.entity.QMember.*;
+import static com.example.querydsl.entity.QMemberNameGram.*;
+import static org.springframework.util.StringUtils.*;
+
+/**
+ * 이름 검색 조건과 member_name_gram 갱신.
+ *
+ * CONTAINS 검색은 검색어의 3-gram을 모두 가진 회원만 후보로 뽑고(gram 인덱스), 후보 안에서만 like '%x%'로 확인한다.
+ * 후보를 뽑는 비용은 테이블 크기가 아니라 검색어 gram들의 posting 수에 비례한다.
+ * 검색어가 3글자보다 짧으면 gram이 없으므로 그냥 like로 찾는다.
+ *
+ * gram 갱신은 엔티티 이벤트 중(flush 도중)에도 불려야 해서 hibernate를 거치지 않고 JDBC로 직접 한다.
+ * */
+public final class MemberNameGrams {
+
+    public static final int GRAM = 3;
+
+    private static final String INSERT = "insert into member_name_gram (gram, member_id) values (?, ?)";
+    private static final String DELETE = "delete from member_name_gram where member_id = ?";
+
+    private MemberNameGrams() {
+    }
+
+    /** 검색 조건. name이 비어있으면 null (where 절에서 무시) */
+    public static BooleanExpression nameMatches(String name, NameMatch match) {
+        if (!hasText(name)) {
+            return null;
+        }
+        if (match == NameMatch.PREFIX) {
+            return member.name.startsWith(name);
+        }
+        if (match == NameMatch.CONTAINS) {
+            return nameContains(name);
+        }
+        return member.name.eq(name);
+    }
+
+    private static BooleanExpression nameContains(String name) {
+        Set<String> grams = of(name);
+        if (grams.isEmpty()) {
+            return member.name.contains(name);
+        }
+        return member.id.in(JPAExpressions
+                        .select(memberNameGram.memberId)
+                        .from(memberNameGram)
+                        .where(memberNameGram.gram.in(grams))
+                        .groupBy(memberNameGram.memberId)
+                        .having(memberNameGram.gram.count().eq((long) grams.size())))
+                .and(member.name.contains(name)); //gram이 다 있어도 순서가 다를 수 있으므로 확인
+    }
+
+    public static Set<String> of(String name) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (name == null) {
+            return grams;
+        }
+        for (int i = 0; i + GRAM <= name.length(); i++) {
+            grams.add(name.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /** 여러 회원의 gram을 한번에 보낸다. (벌크 등록, flush 단위 갱신) */
+    static void indexAll(Connection connection, long[] memberIds, List<String> names) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            for (int i = 0; i < memberIds.length; i++) {
+                for (String gram : of(names.get(i))) {
+                    insert.setString(1, gram);
+                    insert.setLong(2, memberIds[i]);
+                    insert.addBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+
+    static void unindexAll(Connection connection, Collection<Long> memberIds) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement(DELETE)) {
+            for (Long memberId : memberIds) {
+                delete.setLong(1, memberId);
+                delete.addBatch();
+            }
+            delete.executeBatch();
+        }
+    }
+
+    /**
+     * 벌크 update(JPQL)는 엔티티 이벤트가 없으므로 (fromId, toId] 구간의 gram을 다시 만든다.
+     * 구간에서 지워진 회원의 gram도 같이 정리된다.
+     * */
+    static void reindex(Connection connection, long fromIdExclusive, long toIdInclusive) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement(
+                "delete from member_name_gram where member_id > ? and member_id <= ?")) {
+            delete.setLong(1, fromIdExclusive);
+            delete.setLong(2, toIdInclusive);
+            delete.executeUpdate();
+        }
+        try (PreparedStatement select = connection.prepareStatement(
+                "select member_id, name from members where member_id > ? and member_id <= ?");
+             PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            select.setLong(1, fromIdExclusive);
+            select.setLong(2, toIdInclusive);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    for (String gram : of(rows.getString(2))) {
+                        insert.setString(1, gram);
+                        insert.setLong(2, rows.getLong(1));
+                        insert.addBatch();
+                    }
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+}
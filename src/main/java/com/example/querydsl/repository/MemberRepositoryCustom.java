@@ -1,6 +1,8 @@
 package com.example.querydsl.repository;
 
 import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberSlice;
+import com.example.querydsl.dto.MemberSortKey;
 import com.example.querydsl.dto.MemberTeamDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -16,4 +18,10 @@ public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition , Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+
+    /**
+     * keyset(seek) 페이징. after에는 이전 MemberSlice의 nextCursor를 넣는다. (첫 페이지는 null)
+     * offset을 쓰지 않으므로 몇번째 페이지든 조회 비용이 같다.
+     * */
+    MemberSlice searchSlice(MemberSearchCondition condition, MemberSortKey sortKey, String after, int size);
 }
@@ -1,10 +1,18 @@
 package com.example.querydsl.repository;
 
+import com.example.querydsl.cache.MemberCountCache;
+import com.example.querydsl.cache.MemberSearchCache;
+import com.example.querydsl.dto.InvalidSearchRequestException;
+import com.example.querydsl.dto.MemberCursor;
 import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberSlice;
+import com.example.querydsl.dto.MemberSortKey;
 import com.example.querydsl.dto.MemberTeamDto;
 
 import com.example.querydsl.dto.QMemberTeamDto;
+import com.example.querydsl.sql.TransactionChanges;
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
@@ -12,9 +20,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
+import java.util.concurrent.Future;
 
 import static com.example.querydsl.entity.QMember.*;
 import static com.example.querydsl.entity.QTeam.*;
@@ -22,34 +32,48 @@ import static com.example.querydsl.entity.QTeam.*;
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
     private final JPAQueryFactory queryFactory;
+    private final MemberCountCache memberCountCache;
+    private final MemberSearchCache memberSearchCache;
+    private final CountQueryExecutor countQueryExecutor;
+    private final TransactionChanges transactionChanges;
 
-    public MemberRepositoryImpl(JPAQueryFactory queryFactory) {
+    public MemberRepositoryImpl(JPAQueryFactory queryFactory, MemberCountCache memberCountCache, MemberSearchCache memberSearchCache,
+                                CountQueryExecutor countQueryExecutor, TransactionChanges transactionChanges) {
         this.queryFactory = queryFactory;
+        this.memberCountCache = memberCountCache;
+        this.memberSearchCache = memberSearchCache;
+        this.countQueryExecutor = countQueryExecutor;
+        this.transactionChanges = transactionChanges;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory.select(new QMemberTeamDto(member.id.as("memberId"), member.name , member.age , team.id.as("teamId") , team.name.as("teamName")))
+        return memberSearchCache.get("search", condition, () -> queryFactory.select(new QMemberTeamDto(member.id.as("memberId"), member.name , member.age , team.id.as("teamId") , team.name.as("teamName")))
                 .from(member)
                 .leftJoin(member.team(), team)
                 .where(
                         ageGoe(condition.getAgeGoe())
                         ,ageLoe(condition.getAgeLoe())
-                        ,nameEq(condition.getName())
+                        ,nameMatches(condition)
                         ,teamNameEq(condition.getTeamName())
                 )
-                .fetch();
+                .fetch());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        if (useParallelCount()) {
+            return searchPageWithParallelCount(condition, pageable);
+        }
         QueryResults<MemberTeamDto> result = queryFactory.select(new QMemberTeamDto(member.id.as("memberId"), member.name, member.age, team.id.as("teamId"), team.name.as("teamName")))
                 .from(member)
                 .leftJoin(member.team(), team)
                 .where(
                         ageGoe(condition.getAgeGoe())
                         , ageLoe(condition.getAgeLoe())
-                        , nameEq(condition.getName())
+                        , nameMatches(condition)
                         , teamNameEq(condition.getTeamName())
                 )
                 .offset(pageable.getOffset())
@@ -64,8 +88,67 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> result = queryFactory.select(
+        if (useParallelCount()) {
+            return searchPageWithParallelCount(condition, pageable);
+        }
+        List<MemberTeamDto> content = content(condition, pageable); //content만 가져온다. count는 아래에서 필요할 때만.
+
+        /**
+         * 쿼리를 분류해서 count쿼리는 따로 날린다.
+         * count쿼리를 왜 따로 짜지??
+         * join이 필요 없는 등 count쿼리를 쉽게 짤 수 있는 경우가 많다. --> 성능의 차이를 야기함 (걍 select로 하면 조인 등등 다붙음)
+         *
+         * 카운트 쿼리를 생략할 수도 있다.
+         *  페이지 시작하면서 컨텐츠 사이즈가 페이지 사이즈보다 작은경우
+         *      마지막 페이지 일 경우(offext + 컨텐츠 사이즈를 더해서 전체 사이즈 구한다.)
+         * --> PageableExecutionUtils가 이 두 경우에는 람다를 호출하지 않는다.
+         *     호출하더라도 같은 조건의 total은 memberCountCache에서 먼저 찾는다.
+         * */
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> memberCountCache.getTotal(condition, () -> count(condition)));
+    }
+
+    /**
+     * content 쿼리와 count 쿼리를 동시에 실행한다. 페이지 응답 시간 = 둘의 합 -> 둘 중 긴 쪽
+     * count는 별도 커넥션에서 돌기 때문에 content와 다른 시점의 스냅샷일 수 있다. (그 사이 커밋된 변경만큼 차이날 수 있음)
+     * count가 제한시간 안에 안끝나면 total 없이(CountAwarePage.unknown) 돌려준다.
+     * */
+    private Page<MemberTeamDto> searchPageWithParallelCount(MemberSearchCondition condition, Pageable pageable) {
+        Long cachedTotal = memberCountCache.getTotalIfPresent(condition);
+        if (cachedTotal != null) {
+            return CountAwarePage.known(content(condition, pageable), pageable, cachedTotal);
+        }
+
+        long submittedAt = System.nanoTime();
+        Future<Long> total = countQueryExecutor.submit(() -> memberCountCache.getTotal(condition, () -> count(condition)));
+        List<MemberTeamDto> content = content(condition, pageable);
+
+        //첫 페이지 / 마지막 페이지라서 content만으로 total을 알 수 있으면 count는 버린다.
+        //(아직 큐에 있으면 실행되지 않고, 이미 실행중이면 트랜잭션 timeout까지 돈다 - CountQueryExecutor)
+        if (content.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !content.isEmpty())) {
+            if (total != null) {
+                total.cancel(true);
+            }
+            return CountAwarePage.known(content, pageable, pageable.getOffset() + content.size());
+        }
+
+        Long resolved = countQueryExecutor.await(total, submittedAt);
+        return resolved != null
+                ? CountAwarePage.known(content, pageable, resolved)
+                : CountAwarePage.unknown(content, pageable);
+    }
+
+    /**
+     * 커밋 안된 변경이 있는 트랜잭션이면 다른 커넥션의 count에는 그 변경이 안보이므로 순차 실행한다.
+     * */
+    private boolean useParallelCount() {
+        return countQueryExecutor.isEnabled() && !transactionChanges.hasPendingChanges();
+    }
+
+    private List<MemberTeamDto> content(MemberSearchCondition condition, Pageable pageable) {
+        return queryFactory.select(
                 new QMemberTeamDto(member.id.as("memberId"), member.name
                         , member.age, team.id.as("teamId")
                         , team.name.as("teamName")))
@@ -74,39 +157,85 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
                 .where(
                         ageGoe(condition.getAgeGoe())
                         , ageLoe(condition.getAgeLoe())
-                        , nameEq(condition.getName())
+                        , nameMatches(condition)
                         , teamNameEq(condition.getTeamName())
                 )
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
-                .fetchResults();//fetchResult로 하면, count쿼리랑 content쿼리 둘다 날린다.
+                .fetch();
+    }
 
-        JPAQuery<MemberTeamDto> countQuery = queryFactory.select(new QMemberTeamDto(
-                member.id.as("memberId"), member.name
-                , member.age, team.id.as("teamId")
-                , team.name.as("teamName")))
+    /**
+     * count 전용 쿼리. dto 프로젝션 없이 count(member)만 세고,
+     * team 조건이 없으면 team 조인도 하지 않는다. (left join은 member 건수를 바꾸지 않으므로)
+     * */
+    private Long count(MemberSearchCondition condition) {
+        JPAQuery<Long> countQuery = queryFactory
+                .select(member.count())
+                .from(member);
+        if (StringUtils.hasText(condition.getTeamName())) {
+            countQuery.join(member.team(), team); //team.name = ? 조건이 있으면 null team은 어차피 걸러지므로 inner join
+        }
+        return countQuery
+                .where(
+                        ageGoe(condition.getAgeGoe())
+                        , ageLoe(condition.getAgeLoe())
+                        , nameMatches(condition)
+                        , teamNameEq(condition.getTeamName())
+                )
+                .fetchOne();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MemberSlice searchSlice(MemberSearchCondition condition, MemberSortKey sortKey, String after, int size) {
+        MemberSlice.checkSize(size);
+        MemberCursor cursor = after != null ? MemberCursor.decode(after) : null;
+        if (cursor != null && cursor.getSortKey() != sortKey) {
+            throw new InvalidSearchRequestException("커서의 정렬키(" + cursor.getSortKey() + ")와 요청한 정렬키(" + sortKey + ")가 다릅니다.");
+        }
+
+        List<MemberTeamDto> content = queryFactory.select(new QMemberTeamDto(member.id.as("memberId"), member.name, member.age, team.id.as("teamId"), team.name.as("teamName")))
                 .from(member)
                 .leftJoin(member.team(), team)
                 .where(
                         ageGoe(condition.getAgeGoe())
                         , ageLoe(condition.getAgeLoe())
-                        , nameEq(condition.getName())
+                        , nameMatches(condition)
                         , teamNameEq(condition.getTeamName())
-                );
+                        , afterCursor(cursor)
+                )
+                .orderBy(keysetOrder(sortKey))
+                .limit(size + 1) //한건 더 읽어서 다음 페이지가 있는지 판단한다. count쿼리 필요 없음.
+                .fetch();
 
-        PageableExecutionUtils.getPage(result.getResults() , pageable , countQuery::fetchCount);
-        //content와 pagable 토탈 사이즈를 보고 람다식을 생략할 수 있으면 생략한다.
-        /**
-         * 쿼리를 분류해서 count쿼리는 따로 날린다.
-         * count쿼리를 왜 따로 짜지??
-         * join이 필요 없는 등 count쿼리를 쉽게 짤 수 있는 경우가 많다. --> 성능의 차이를 야기함 (걍 select로 하면 조인 등등 다붙음)
-         *
-         * 카운트 쿼리를 생략할 수도 있다.
-         *  페이지 시작하면서 컨텐츠 사이즈가 페이지 사이즈보다 작은경우
-         *      마지막 페이지 일 경우(offext + 컨텐츠 사이즈를 더해서 전체 사이즈 구한다.)
-         * */
+        if (content.size() <= size) {
+            return new MemberSlice(content, null);
+        }
+        content = content.subList(0, size);
+        return new MemberSlice(content, MemberCursor.of(sortKey, content.get(size - 1)).encode());
+    }
 
-        return new PageImpl<>(result.getResults(),pageable , countQuery.fetchCount());
+    /**
+     * offset으로 앞의 행을 버리는 대신, 마지막으로 본 행 다음부터 인덱스를 타고 바로 읽는다.
+     * (age, member_id) 순서라면 age > :age or (age = :age and member_id > :id)
+     * */
+    private BooleanExpression afterCursor(MemberCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        if (cursor.getSortKey() == MemberSortKey.AGE) {
+            return member.age.gt(cursor.getAge())
+                    .or(member.age.eq(cursor.getAge()).and(member.id.gt(cursor.getMemberId())));
+        }
+        return member.id.gt(cursor.getMemberId());
+    }
+
+    private OrderSpecifier<?>[] keysetOrder(MemberSortKey sortKey) {
+        if (sortKey == MemberSortKey.AGE) {
+            return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+        }
+        return new OrderSpecifier<?>[]{member.id.asc()};
     }
 
     public BooleanExpression ageGoe(Integer ageGoe){
@@ -118,6 +247,9 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
     public BooleanExpression nameEq(String name){
         return StringUtils.hasText(name) ? member.name.eq(name) : null;
     }
+    public BooleanExpression nameMatches(MemberSearchCondition condition){
+        return MemberNameGrams.nameMatches(condition.getName(), condition.getNameMatch());
+    }
     public BooleanExpression teamNameEq(String teamName){
         return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
     }
@@ -0,0 +1,124 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.admission.QueryTimeouts;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MemberSearchCondition 모양별 JPQL 템플릿.
+ *
+ * querydsl 동적 쿼리는 호출할때마다 표현식 트리를 만들고 JPQL 문자열로 직렬화한다.
+ * 조건 필드는 4개(name, teamName, ageGoe, ageLoe)뿐이라 어떤 필드가 있냐 없냐로 16가지 모양밖에 없으므로,
+ * 모양별로 JPQL을 한번만 만들어두고 호출때는 파라미터만 바인딩한다.
+ * JPQL 문자열이 항상 같으므로 hibernate도 QueryPlanCache에서 파싱된 쿼리 플랜을 재사용한다.
+ * */
+@Component
+public class MemberSearchTemplates {
+
+    private static final int NAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+    private static final int SHAPES = 1 << 4;
+
+    private final EntityManager em;
+    private final QueryTimeouts queryTimeouts;
+    private final AtomicReferenceArray<String> templates = new AtomicReferenceArray<>(SHAPES);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public MemberSearchTemplates(EntityManager em, QueryTimeouts queryTimeouts) {
+        this.em = em;
+        this.queryTimeouts = queryTimeouts;
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        MemberSearchCondition normalized = condition.normalize();
+        int shape = shape(normalized);
+
+        TypedQuery<MemberTeamDto> query = em.createQuery(template(shape), MemberTeamDto.class)
+                .setHint(QueryTimeouts.HINT, queryTimeouts.currentMillis());
+        if ((shape & NAME) != 0) {
+            query.setParameter("name", normalized.getName());
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            query.setParameter("teamName", normalized.getTeamName());
+        }
+        if ((shape & AGE_GOE) != 0) {
+            query.setParameter("ageGoe", normalized.getAgeGoe());
+        }
+        if ((shape & AGE_LOE) != 0) {
+            query.setParameter("ageLoe", normalized.getAgeLoe());
+        }
+        return query.getResultList();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    static int shape(MemberSearchCondition normalized) {
+        int shape = 0;
+        if (normalized.getName() != null) {
+            shape |= NAME;
+        }
+        if (normalized.getTeamName() != null) {
+            shape |= TEAM_NAME;
+        }
+        if (normalized.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (normalized.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        return shape;
+    }
+
+    private String template(int shape) {
+        String template = templates.get(shape);
+        if (template != null) {
+            hits.increment();
+            return template;
+        }
+        misses.increment();
+        templates.compareAndSet(shape, null, build(shape)); //동시에 만들어도 결과는 같다.
+        return templates.get(shape);
+    }
+
+    /**
+     * searchByWhereParam 과 같은 쿼리. (select new 로 dto를 바로 만든다)
+     * */
+    private static String build(int shape) {
+        StringBuilder jpql = new StringBuilder(
+                "select new com.example.querydsl.dto.MemberTeamDto(m.id, m.name, m.age, t.id, t.name)" +
+                " from Member m left join m.team t");
+        String prefix = " where ";
+        if ((shape & NAME) != 0) {
+            jpql.append(prefix).append("m.name = :name");
+            prefix = " and ";
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            jpql.append(prefix).append("t.name = :teamName");
+            prefix = " and ";
+        }
+        if ((shape & AGE_GOE) != 0) {
+            jpql.append(prefix).append("m.age >= :ageGoe");
+            prefix = " and ";
+        }
+        if ((shape & AGE_LOE) != 0) {
+            jpql.append(prefix).append("m.age <= :ageLoe");
+        }
+        return jpql.toString();
+    }
+}
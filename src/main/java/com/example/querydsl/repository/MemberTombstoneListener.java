@@ -0,0 +1,29 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.entity.Member;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Member delete 때 member_tombstone을 같은 커넥션(트랜잭션)에서 남긴다. (HibernateConfig에서 등록)
+ * */
+@Component
+public class MemberTombstoneListener implements PostDeleteEventListener {
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            long memberId = (Long) event.getId();
+            event.getSession().doWork(connection -> MemberTombstones.record(connection, List.of(memberId)));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.querydsl.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * member_tombstone 쓰기. 회원을 지우는 커넥션(트랜잭션)에서 같이 넣으므로 롤백되면 같이 롤백된다.
+ * 삭제 시각은 auditing(lastModifiedDate)과 같은 시계(LocalDateTime.now())를 쓴다.
+ * */
+final class MemberTombstones {
+
+    private static final String INSERT = "insert into member_tombstone (member_id, deleted_date) values (?, ?)";
+
+    private MemberTombstones() {
+    }
+
+    static void record(Connection connection, Collection<Long> memberIds) throws SQLException {
+        if (memberIds.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            for (Long memberId : memberIds) {
+                insert.setLong(1, memberId);
+                insert.setTimestamp(2, now);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+}
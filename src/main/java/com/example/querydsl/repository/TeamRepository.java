@@ -0,0 +1,34 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.entity.Team;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+
+public interface TeamRepository extends JpaRepository<Team, Long> {
+
+    /**
+     * 쿼리 캐시 : 결과 id 목록을 team-by-name 영역에 캐시하고, 엔티티는 team 영역에서 꺼낸다.
+     * team 테이블이 바뀌면(update timestamps) 자동으로 무효화된다.
+     * */
+    @QueryHints({
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHE_REGION, value = "team-by-name")
+    })
+    List<Team> findByName(String name);
+
+    /**
+     * 벌크 JPQL은 hibernate가 team 영역 전체를 비우고, team 테이블을 쓰는 쿼리 캐시도 무효화한다.
+     * (영속성 컨텍스트는 직접 비워야 하므로 clearAutomatically)
+     * */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Team t set t.name = :name where t.id = :id")
+    int rename(@Param("id") Long id, @Param("name") String name);
+}
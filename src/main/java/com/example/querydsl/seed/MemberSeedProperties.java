@@ -0,0 +1,50 @@
+package com.example.querydsl.seed;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * 초기 데이터 크기 설정. (application.yml의 init.member.*)
+ * 기본값은 예전 InitMember와 같은 데이터(teamA, teamB / member0 ~ member99)를 만든다.
+ * */
+@Data
+@Component
+@ConfigurationProperties(prefix = "init.member")
+public class MemberSeedProperties {
+
+    private long count = 100;
+    private int teamCount = 2;
+
+    private AgeDistribution ageDistribution = AgeDistribution.SEQUENTIAL;
+    private int ageMin = 0;
+    private int ageMax = 100;
+
+    private int batchSize = 100;      //flush / clear 주기. hibernate.jdbc.batch_size와 맞춘다.
+    private int commitSize = 10_000;  //트랜잭션 하나에서 넣을 건수. 너무 크면 undo 로그가 커진다.
+    private int threads = 1;
+
+    /**
+     * 바인딩 직후(기동 시점)와 seed 직전에 확인한다.
+     * commitSize, batchSize가 0이면 무한 루프 / 0으로 나누기가 된다.
+     * */
+    @PostConstruct
+    public void validate() {
+        Assert.isTrue(count >= 0, "init.member.count must not be negative");
+        Assert.isTrue(teamCount >= 0, "init.member.team-count must not be negative");
+        Assert.isTrue(batchSize > 0, "init.member.batch-size must be positive");
+        Assert.isTrue(commitSize > 0, "init.member.commit-size must be positive");
+        Assert.isTrue(threads > 0, "init.member.threads must be positive");
+        Assert.isTrue(ageMin >= 0 && ageMin <= ageMax, "init.member.age-min must be between 0 and age-max");
+        Assert.notNull(ageDistribution, "init.member.age-distribution must not be null");
+    }
+
+    public enum AgeDistribution {
+        SEQUENTIAL, //member i 의 나이 = i
+        UNIFORM,    //ageMin ~ ageMax 균등 분포
+        NORMAL      //(ageMin + ageMax) / 2 중심의 정규 분포
+    }
+}
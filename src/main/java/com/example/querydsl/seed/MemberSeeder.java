@@ -0,0 +1,149 @@
+package com.example.querydsl.seed;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 대량 초기 데이터 생성기.
+ *
+ * - 시퀀스를 allocationSize(50)씩 당겨오고, hibernate.jdbc.batch_size + order_inserts 로 insert를 묶어서 보낸다.
+ * - batchSize마다 flush/clear 해서 영속성 컨텍스트가 끝없이 커지지 않게 한다.
+ * - 전체 구간을 threads개로 나눠서 각 스레드가 자기 구간만 넣는다.
+ *   (id는 스레드마다 따로 당겨온 시퀀스 블럭을 쓰므로 서로 겹치지 않는다)
+ *
+ * postConstruct랑 Transactional을 같이 넣을 수 없어서(spring lifeCycle) TransactionTemplate으로 트랜잭션을 직접 연다.
+ * */
+@Slf4j
+@Component
+public class MemberSeeder {
+
+    @PersistenceContext
+    private EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+
+    public MemberSeeder(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void seed(MemberSeedProperties properties) {
+        properties.validate(); //코드에서 직접 만든 설정(벤치마크 등)도 확인
+        long start = System.nanoTime();
+        List<Long> teamIds = transactionTemplate.execute(status -> createTeams(properties.getTeamCount()));
+
+        int threads = (int) Math.max(1, Math.min(properties.getThreads(), properties.getCount()));
+        long rangeSize = (properties.getCount() + threads - 1) / threads;
+        AtomicLong inserted = new AtomicLong();
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                long from = i * rangeSize;
+                long to = Math.min(properties.getCount(), from + rangeSize);
+                futures.add(workers.submit(() -> insertRange(properties, teamIds, from, to, inserted, start)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("초기 데이터 생성 중 인터럽트", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("초기 데이터 생성 실패", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("seed done. teams={}, members={}, {} ms, {} rows/sec",
+                teamIds.size(), inserted.get(), elapsedMillis, inserted.get() * 1000 / elapsedMillis);
+    }
+
+    private List<Long> createTeams(int teamCount) {
+        List<Long> teamIds = new ArrayList<>(teamCount);
+        for (int i = 0; i < teamCount; i++) {
+            Team team = new Team(teamName(i, teamCount));
+            em.persist(team);
+            teamIds.add(team.getId());
+        }
+        return teamIds;
+    }
+
+    /**
+     * [from, to) 구간을 commitSize 단위 트랜잭션으로 나눠서 넣는다.
+     * */
+    private void insertRange(MemberSeedProperties properties, List<Long> teamIds, long from, long to,
+                             AtomicLong inserted, long start) {
+        Random random = new Random(from); //구간별로 고정된 seed -> 같은 설정이면 같은 데이터
+        long reportEvery = Math.max(properties.getCommitSize(), properties.getCount() / 10);
+
+        for (long chunkFrom = from; chunkFrom < to; chunkFrom += properties.getCommitSize()) {
+            long chunkTo = Math.min(to, chunkFrom + properties.getCommitSize());
+            long chunkStart = chunkFrom;
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Team> teams = teamReferences(teamIds);
+                for (long i = chunkStart; i < chunkTo; i++) {
+                    Team team = teams.isEmpty() ? null : teams.get((int) (i % teams.size()));
+                    em.persist(new Member("member" + i, age(properties, i, random), team));
+                    if ((i - chunkStart + 1) % properties.getBatchSize() == 0) {
+                        em.flush();
+                        em.clear();
+                        teams = teamReferences(teamIds); //clear 후에는 다시 참조를 얻는다.
+                    }
+                }
+            });
+
+            long before = inserted.getAndAdd(chunkTo - chunkFrom);
+            long after = before + (chunkTo - chunkFrom);
+            if (before / reportEvery != after / reportEvery) {
+                long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+                log.info("seed progress {}/{} ({} rows/sec)", after, properties.getCount(), after * 1000 / elapsedMillis);
+            }
+        }
+    }
+
+    private List<Team> teamReferences(List<Long> teamIds) {
+        List<Team> teams = new ArrayList<>(teamIds.size());
+        for (Long teamId : teamIds) {
+            teams.add(em.getReference(Team.class, teamId)); //select 없이 프록시만 만든다.
+        }
+        return teams;
+    }
+
+    private int age(MemberSeedProperties properties, long i, Random random) {
+        int min = properties.getAgeMin();
+        int max = properties.getAgeMax();
+        switch (properties.getAgeDistribution()) {
+            case UNIFORM:
+                return min + random.nextInt(max - min + 1);
+            case NORMAL:
+                double mean = (min + max) / 2.0;
+                double stddev = (max - min) / 6.0;
+                return (int) Math.max(min, Math.min(max, Math.round(mean + random.nextGaussian() * stddev)));
+            default:
+                return (int) i;
+        }
+    }
+
+    /**
+     * 팀이 26개 이하면 예전처럼 teamA, teamB ... 로 만든다.
+     * */
+    static String teamName(int index, int teamCount) {
+        return teamCount <= 26 ? "team" + (char) ('A' + index) : "team" + index;
+    }
+}
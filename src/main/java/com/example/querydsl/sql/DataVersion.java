@@ -0,0 +1,115 @@
+package com.example.querydsl.sql;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 테이블별 데이터 버전.
+ * insert / update / delete SQL이 나갈때마다 해당 테이블의 버전을 올린다.
+ * em.persist 뿐 아니라 queryFactory.update(member).execute() 같은 bulk 연산도 SQL은 나가므로 같이 잡힌다.
+ *
+ * 트랜잭션 안의 쓰기라면 커밋/롤백 직후에 한번 더 올린다.
+ * (SQL이 나간 시점 ~ 커밋 사이에 다른 스레드가 예전 데이터를 새 버전으로 캐시해 두는 것을 막기 위해)
+ *
+ * 버전은 프로세스 안에서만 유지된다. 재시작하면 0부터 다시 세므로 밖으로 내보낼 때는 epoch()를 같이 쓴다.
+ * */
+@Component
+public class DataVersion implements SqlStatementListener {
+
+    public static final String MEMBERS = "members";
+    public static final String TEAM = "team";
+
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> modifiedAt = new ConcurrentHashMap<>();
+    private final long startedAt = System.currentTimeMillis();
+
+    @Override
+    public void onStatement(String sql) {
+        String table = SqlStatements.writeTarget(sql);
+        if (table != null) {
+            markChanged(table);
+        }
+    }
+
+    /**
+     * hibernate를 거치지 않는 쓰기(JdbcTemplate 등)는 직접 호출해줘야 한다.
+     * */
+    public void markChanged(String table) {
+        bump(table);
+        registerAfterCompletion(table);
+    }
+
+    public long version(String table) {
+        AtomicLong version = versions.get(table);
+        return version != null ? version.get() : 0;
+    }
+
+    /**
+     * 마지막으로 버전이 바뀐 시각(epoch millis). 시작 후 쓰기가 없었으면 시작 시각.
+     * */
+    public long lastModified(String table) {
+        return modifiedAt.getOrDefault(table, startedAt);
+    }
+
+    /**
+     * 이 프로세스의 버전 번호 구간을 구분하는 값. (재시작 전후 같은 버전 번호가 같은 데이터가 아니므로)
+     * */
+    public long epoch() {
+        return startedAt;
+    }
+
+    /**
+     * 현재 트랜잭션에서 이미 쓰기 SQL이 나갔는지. (아직 커밋 안된 내 데이터를 캐시하면 안되므로)
+     * */
+    public boolean currentTransactionHasWrites() {
+        return currentWriteSynchronization() != null;
+    }
+
+    private void bump(String table) {
+        versions.computeIfAbsent(table, key -> new AtomicLong()).incrementAndGet();
+        modifiedAt.put(table, System.currentTimeMillis());
+    }
+
+    private void registerAfterCompletion(String table) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        WriteSynchronization synchronization = currentWriteSynchronization();
+        if (synchronization == null) {
+            synchronization = new WriteSynchronization();
+            TransactionSynchronizationManager.registerSynchronization(synchronization);
+        }
+        synchronization.tables.add(table);
+    }
+
+    private WriteSynchronization currentWriteSynchronization() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        //REQUIRES_NEW로 바깥 트랜잭션이 보류되면 바깥의 synchronization은 여기 보이지 않는다.
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof WriteSynchronization) {
+                return (WriteSynchronization) synchronization;
+            }
+        }
+        return null;
+    }
+
+    private class WriteSynchronization implements TransactionSynchronization {
+        private final Set<String> tables = new HashSet<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            for (String table : tables) {
+                bump(table);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.querydsl.sql;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.event.spi.PreDeleteEvent;
+import org.hibernate.event.spi.PreDeleteEventListener;
+import org.hibernate.event.spi.PreInsertEvent;
+import org.hibernate.event.spi.PreInsertEventListener;
+import org.hibernate.event.spi.PreUpdateEvent;
+import org.hibernate.event.spi.PreUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 지금 스레드가 엔티티 insert / update / delete 중인지. (hibernate Pre~Post 이벤트 사이)
+ * 엔티티 쓰기 SQL은 항상 이 사이에 나가므로, 그 밖에서 나간 쓰기 SQL은 bulk JPQL이나 native 쿼리다.
+ * -> 엔티티 이벤트로 값을 따라가는 쪽(MemberReadModel, TeamStats)이 이벤트로 못받는 변경을 알아챈다.
+ * 쓰기 SQL 중에 예외가 나서 Post가 안불려도 트랜잭션이 끝나면 지운다.
+ * */
+@Component
+public class EntityWriteTracker implements PreInsertEventListener, PreUpdateEventListener, PreDeleteEventListener,
+        PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final ThreadLocal<Boolean> WRITING = new ThreadLocal<>();
+
+    public static boolean inEntityWrite() {
+        return WRITING.get() != null;
+    }
+
+    @Override
+    public boolean onPreInsert(PreInsertEvent event) {
+        begin();
+        return false;
+    }
+
+    @Override
+    public boolean onPreUpdate(PreUpdateEvent event) {
+        begin();
+        return false;
+    }
+
+    @Override
+    public boolean onPreDelete(PreDeleteEvent event) {
+        begin();
+        return false;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        WRITING.remove();
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        WRITING.remove();
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        WRITING.remove();
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void begin() {
+        WRITING.set(Boolean.TRUE);
+        if (TransactionSynchronizationManager.isSynchronizationActive() && !registered()) {
+            TransactionSynchronizationManager.registerSynchronization(new Reset());
+        }
+    }
+
+    private static boolean registered() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Reset) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Reset implements TransactionSynchronization {
+        @Override
+        public void afterCompletion(int status) {
+            WRITING.remove();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.querydsl.sql;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * HTTP 요청 하나를 N+1 감지 범위로 잡는다. (open-in-view로 컨트롤러에서 지연로딩 되는 것까지 포함)
+ *
+ * reject 모드에서는 응답 본문을 버퍼에 모아두었다가, 요청이 끝난 뒤 N+1이 있었으면 본문을 버리고 500을 보낸다.
+ * (컨트롤러가 본문을 쓰면서 응답이 이미 커밋되면 상태를 바꿀 수 없으므로)
+ * 본문 전체가 메모리에 올라가므로 대용량 export(/v1/members/stream)가 있는 운영에서는 reject를 쓰지 않는다.
+ * */
+@Slf4j
+@Component
+public class NPlusOneDetectionFilter extends OncePerRequestFilter {
+
+    private final NPlusOneDetector detector;
+
+    public NPlusOneDetectionFilter(NPlusOneDetector detector) {
+        this.detector = detector;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!detector.isRejecting()) {
+            detector.beginScope(request.getMethod() + " " + request.getRequestURI());
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                detector.endScope();
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper buffered = new ContentCachingResponseWrapper(response);
+        String rejection;
+        detector.beginScope(request.getMethod() + " " + request.getRequestURI());
+        try {
+            filterChain.doFilter(request, buffered);
+        } finally {
+            rejection = detector.endScope();
+        }
+
+        if (rejection != null && !response.isCommitted()) {
+            log.warn("rejected {} {} : {}", request.getMethod(), request.getRequestURI(), NPlusOneQueryException.REASON);
+            response.reset(); //컨트롤러가 쓴 헤더 / 본문은 버린다.
+            response.sendError(NPlusOneQueryException.STATUS.value(), NPlusOneQueryException.REASON);
+            return;
+        }
+        buffered.copyBodyToResponse();
+    }
+}
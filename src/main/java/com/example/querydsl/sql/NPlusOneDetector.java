@@ -0,0 +1,160 @@
+package com.example.querydsl.sql;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * N+1 감지기.
+ *
+ * 지연로딩(member.getTeam().getName())으로 나가는 select는 바인딩 값(id)만 다르고 SQL 문자열은 완전히 같다.
+ * 한 범위(HTTP 요청 또는 트랜잭션) 안에서 같은 select가 threshold번 이상 나가면 N+1로 보고,
+ * 그 select를 일으킨 우리 코드 위치(호출 지점)와 함께 mode에 따라 처리한다.
+ *   log    : 경고 로그만
+ *   fail   : AssertionError -> 테스트 실패
+ *   reject : 경고 로그 + 범위가 끝날때 요청/트랜잭션을 실패시킨다. (500, NPlusOneQueryException)
+ *   off    : 아무것도 안함
+ *
+ * reject는 SQL 실행 도중(hibernate StatementInspector 안, flush 중일 수도 있다)에 던지지 않는다.
+ * 거기서 던지면 hibernate 예외로 감싸지거나 flush 중간에 끊기므로, 위반을 기록해 두었다가
+ * HTTP 요청은 NPlusOneDetectionFilter가 응답 전에, 트랜잭션은 커밋 직전(beforeCommit)에 실패시킨다.
+ * */
+@Slf4j
+@Component
+public class NPlusOneDetector implements SqlStatementListener {
+
+    public enum Mode {OFF, LOG, FAIL, REJECT}
+
+    private static final ThreadLocal<Scope> REQUEST_SCOPE = new ThreadLocal<>();
+
+    private final Mode mode;
+    private final int threshold;
+
+    public NPlusOneDetector(@Value("${member.n-plus-one.mode:log}") String mode,
+                            @Value("${member.n-plus-one.threshold:5}") int threshold) {
+        this.mode = Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        this.threshold = threshold;
+    }
+
+    /**
+     * HTTP 요청 단위로 세고 싶을 때 (NPlusOneDetectionFilter). 범위가 없으면 트랜잭션 단위로 센다.
+     * */
+    public void beginScope(String name) {
+        REQUEST_SCOPE.set(new Scope(name));
+    }
+
+    /**
+     * 범위를 닫고, reject 모드에서 N+1이 있었으면 첫 위반 메시지를 돌려준다. (없으면 null)
+     * */
+    public String endScope() {
+        Scope scope = REQUEST_SCOPE.get();
+        REQUEST_SCOPE.remove();
+        return scope != null ? scope.rejection : null;
+    }
+
+    public boolean isRejecting() {
+        return mode == Mode.REJECT;
+    }
+
+    @Override
+    public void onStatement(String sql) {
+        if (mode == Mode.OFF || !SqlStatements.isSelect(sql)) {
+            return;
+        }
+        Scope scope = currentScope();
+        if (scope == null) {
+            return;
+        }
+        int count = scope.counts.merge(sql, 1, Integer::sum);
+        if (count == threshold) {
+            report(scope, sql);
+        }
+    }
+
+    private void report(Scope scope, String sql) {
+        String message = String.format("N+1 query detected in %s : same select executed %d times%n  sql : %s%n  at  : %s",
+                scope.name, threshold, sql, callSite());
+        switch (mode) {
+            case FAIL:
+                throw new AssertionError(message);
+            case REJECT:
+                log.warn(message);
+                if (scope.rejection == null) {
+                    scope.rejection = message;
+                }
+                break;
+            default:
+                log.warn(message);
+        }
+    }
+
+    /**
+     * hibernate / spring / 프록시 / 감지기 자신의 프레임을 건너뛴 첫 우리 코드 3줄.
+     * */
+    private static String callSite() {
+        List<String> frames = StackWalker.getInstance().walk(stack -> stack
+                .filter(frame -> frame.getClassName().startsWith("com.example.querydsl.")
+                        && !isDetectorFrame(frame.getClassName())
+                        && !frame.getClassName().contains("$$"))
+                .limit(3)
+                .map(StackWalker.StackFrame::toString)
+                .collect(Collectors.toList()));
+        return frames.isEmpty() ? "(unknown)" : String.join("\n        ", frames);
+    }
+
+    private static boolean isDetectorFrame(String className) {
+        return className.equals(NPlusOneDetector.class.getName())
+                || className.startsWith(NPlusOneDetector.class.getName() + "$")
+                || className.equals(SqlStatementInspector.class.getName());
+    }
+
+    private Scope currentScope() {
+        Scope scope = REQUEST_SCOPE.get();
+        if (scope != null) {
+            return scope;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof TransactionScope) {
+                return ((TransactionScope) synchronization).scope;
+            }
+        }
+        TransactionScope transactionScope = new TransactionScope();
+        TransactionSynchronizationManager.registerSynchronization(transactionScope);
+        return transactionScope.scope;
+    }
+
+    private static final class Scope {
+        private final String name;
+        private final Map<String, Integer> counts = new HashMap<>();
+        private String rejection;
+
+        private Scope(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * 트랜잭션에 붙어 다니다가 트랜잭션이 끝나면 같이 버려진다.
+     * */
+    private static final class TransactionScope implements TransactionSynchronization {
+        private final Scope scope = new Scope("transaction " + TransactionSynchronizationManager.getCurrentTransactionName());
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (scope.rejection != null) {
+                throw new NPlusOneQueryException(scope.rejection); //커밋 대신 롤백
+            }
+        }
+    }
+}
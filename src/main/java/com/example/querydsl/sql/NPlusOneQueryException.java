@@ -0,0 +1,19 @@
+package com.example.querydsl.sql;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * reject 모드에서 N+1 이 감지되면 요청을 실패시킨다.
+ * 클라이언트 잘못이 아니라 서버 코드의 결함이므로 500. (NPlusOneDetectionFilter도 같은 상태를 쓴다)
+ * */
+@ResponseStatus(value = HttpStatus.INTERNAL_SERVER_ERROR, reason = NPlusOneQueryException.REASON)
+public class NPlusOneQueryException extends RuntimeException {
+
+    public static final HttpStatus STATUS = HttpStatus.INTERNAL_SERVER_ERROR;
+    public static final String REASON = "N+1 query detected";
+
+    public NPlusOneQueryException(String message) {
+        super(message);
+    }
+}
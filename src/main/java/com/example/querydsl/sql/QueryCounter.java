@@ -0,0 +1,33 @@
+package com.example.querydsl.sql;
+
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 스레드별로 실행된 SQL 수와 로딩된 엔티티 수를 센다.
+ * 호출 전후 값의 차이로 한 메서드가 SQL을 몇번 날렸는지 알 수 있다. (Statistics는 전체 합계라 동시 요청이 섞인다)
+ * */
+@Component
+public class QueryCounter implements SqlStatementListener, PostLoadEventListener {
+
+    private static final ThreadLocal<long[]> COUNTS = ThreadLocal.withInitial(() -> new long[2]);
+
+    @Override
+    public void onStatement(String sql) {
+        COUNTS.get()[0]++;
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        COUNTS.get()[1]++;
+    }
+
+    public long statements() {
+        return COUNTS.get()[0];
+    }
+
+    public long entitiesLoaded() {
+        return COUNTS.get()[1];
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.querydsl.sql;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.jdbc.internal.FormatStyle;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * show-sql 대신 쓰는 SQL 로그.
+ *
+ * show-sql + org.hibernate.SQL: debug 는 모든 SQL을 요청 스레드에서 포맷해서 두번(stdout, 로거) 찍는다.
+ * 여기서는 요청 스레드는 샘플링 판단과 큐에 넣는 것만 하고, 포맷/출력은 백그라운드 스레드 하나가 한다.
+ * (logback AsyncAppender는 큐에 넣기 전에 호출 스레드에서 메시지를 만들기 때문에 포맷 비용을 옮겨주지 못한다)
+ *
+ * 샘플링은 SQL 모양(= ? 바인드가 들어간 SQL 문자열)별로 첫번째, 그리고 sample-every번마다 한번.
+ * 큐가 꽉 차면 기다리지 않고 버린다. (버린 수는 다음 로그에 같이 찍는다)
+ * */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "member.sql-log", name = "enabled", havingValue = "true")
+public class SqlLogListener implements SqlStatementListener, DisposableBean {
+
+    private final long sampleEvery;
+    private final boolean format;
+    private final int maxShapes;
+    private final ConcurrentHashMap<String, AtomicLong> shapes = new ConcurrentHashMap<>();
+    private final BlockingQueue<Entry> queue;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+
+    public SqlLogListener(@Value("${member.sql-log.sample-every:100}") long sampleEvery,
+                          @Value("${member.sql-log.format:true}") boolean format,
+                          @Value("${member.sql-log.max-shapes:10000}") int maxShapes,
+                          @Value("${member.sql-log.queue-size:1000}") int queueSize) {
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.format = format;
+        this.maxShapes = maxShapes;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.writer = new Thread(this::write, "sql-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void onStatement(String sql) {
+        long count = occurrence(sql);
+        if (count != 1 && count % sampleEvery != 0) {
+            return;
+        }
+        if (!queue.offer(new Entry(sql, count))) {
+            dropped.increment();
+        }
+    }
+
+    private long occurrence(String sql) {
+        AtomicLong counter = shapes.get(sql);
+        if (counter == null) {
+            if (shapes.size() >= maxShapes) {
+                shapes.clear(); //모양이 너무 많으면(리터럴이 박힌 SQL 등) 처음부터 다시 센다.
+            }
+            counter = shapes.computeIfAbsent(sql, key -> new AtomicLong());
+        }
+        return counter.incrementAndGet();
+    }
+
+    private void write() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Entry entry = queue.poll(1, TimeUnit.SECONDS);
+                if (entry != null) {
+                    log(entry);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            log(entry);
+        }
+    }
+
+    private void log(Entry entry) {
+        String sql = format ? FormatStyle.BASIC.getFormatter().format(entry.sql) : entry.sql;
+        long droppedCount = dropped.sumThenReset();
+        if (droppedCount > 0) {
+            log.info("[#{}, dropped {}] {}", entry.occurrence, droppedCount, sql);
+        } else {
+            log.info("[#{}] {}", entry.occurrence, sql);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private static class Entry {
+        private final String sql;
+        private final long occurrence;
+
+        Entry(String sql, long occurrence) {
+            this.sql = sql;
+            this.occurrence = occurrence;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.querydsl.sql;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * hibernate에는 StatementInspector를 하나만 등록할 수 있어서, 여기서 받아서 SqlStatementListener 빈들에게 나눠준다.
+ * 리스너 빈들이 EntityManager 등에 의존할 수 있으므로 첫 SQL 실행 시점에 늦게 찾아온다. (순환 참조 방지)
+ * */
+@Component
+public class SqlStatementInspector implements StatementInspector {
+
+    private final transient ObjectProvider<SqlStatementListener> listenerProvider;
+    private transient volatile List<SqlStatementListener> listeners;
+
+    public SqlStatementInspector(ObjectProvider<SqlStatementListener> listenerProvider) {
+        this.listenerProvider = listenerProvider;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<SqlStatementListener> current = listeners;
+        if (current == null) {
+            current = listenerProvider.orderedStream().collect(Collectors.toList());
+            listeners = current;
+        }
+        for (SqlStatementListener listener : current) {
+            listener.onStatement(sql);
+        }
+        return sql;
+    }
+}
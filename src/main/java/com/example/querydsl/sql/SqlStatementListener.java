@@ -0,0 +1,9 @@
+package com.example.querydsl.sql;
+
+/**
+ * hibernate가 실행하는 모든 SQL을 받아보는 리스너.
+ * SqlStatementInspector가 statement를 준비하는 시점(요청 스레드)에 호출하므로 가볍게 처리해야 한다.
+ * */
+public interface SqlStatementListener {
+    void onStatement(String sql);
+}
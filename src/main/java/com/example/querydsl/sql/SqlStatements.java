@@ -0,0 +1,63 @@
+package com.example.querydsl.sql;
+
+import java.util.Locale;
+
+/**
+ * hibernate가 만든 SQL 문자열을 가볍게 들여다보는 유틸.
+ * (파서가 아니라 앞부분만 본다. use_sql_comments 주석은 건너뛴다)
+ * */
+public final class SqlStatements {
+
+    private SqlStatements() {
+    }
+
+    public static boolean isSelect(String sql) {
+        int i = skipWhitespaceAndComments(sql, 0);
+        return sql.regionMatches(true, i, "select ", 0, 7);
+    }
+
+    /**
+     * insert into members ..., update members set ..., delete from members ... 에서 테이블 이름을 뽑는다.
+     * 쓰기 SQL이 아니면 null. select면 첫 글자만 보고 바로 null.
+     * */
+    public static String writeTarget(String sql) {
+        int i = skipWhitespaceAndComments(sql, 0);
+        if (i >= sql.length()) {
+            return null;
+        }
+        char first = Character.toLowerCase(sql.charAt(i));
+        if (first == 'i' && sql.regionMatches(true, i, "insert into ", 0, 12)) {
+            return tableName(sql, i + 12);
+        }
+        if (first == 'u' && sql.regionMatches(true, i, "update ", 0, 7)) {
+            return tableName(sql, i + 7);
+        }
+        if (first == 'd' && sql.regionMatches(true, i, "delete from ", 0, 12)) {
+            return tableName(sql, i + 12);
+        }
+        return null;
+    }
+
+    static int skipWhitespaceAndComments(String sql, int i) {
+        while (i < sql.length()) {
+            if (Character.isWhitespace(sql.charAt(i))) {
+                i++;
+            } else if (sql.startsWith("/*", i)) { //use_sql_comments
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? sql.length() : end + 2;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static String tableName(String sql, int start) {
+        int i = skipWhitespaceAndComments(sql, start);
+        int end = i;
+        while (end < sql.length() && !Character.isWhitespace(sql.charAt(end)) && sql.charAt(end) != '(') {
+            end++;
+        }
+        return end > i ? sql.substring(i, end).toLowerCase(Locale.ROOT) : null;
+    }
+}
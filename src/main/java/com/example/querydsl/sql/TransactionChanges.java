@@ -0,0 +1,35 @@
+package com.example.querydsl.sql;
+
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 현재 트랜잭션에 아직 커밋 안된 변경이 있는지.
+ * 이런 트랜잭션에서는 캐시나 다른 커넥션(다른 트랜잭션)의 결과를 쓰면 내 변경이 빠진 결과를 보게 된다.
+ * */
+@Component
+public class TransactionChanges {
+
+    private final EntityManager em;
+    private final DataVersion dataVersion;
+
+    public TransactionChanges(EntityManager em, DataVersion dataVersion) {
+        this.em = em;
+        this.dataVersion = dataVersion;
+    }
+
+    public boolean hasPendingChanges() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return false;
+        }
+        if (dataVersion.currentTransactionHasWrites()) {
+            return true;
+        }
+        //persist만 하고 아직 flush 전인 엔티티도 있을 수 있다. (SQL이 안나갔으므로 버전으로는 모른다)
+        return !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && em.unwrap(Session.class).isDirty();
+    }
+}
@@ -0,0 +1,402 @@
+package com.example.querydsl.stats;
+
+import com.example.querydsl.dto.TeamStatsDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.sql.DataVersion;
+import com.example.querydsl.sql.EntityWriteTracker;
+import com.example.querydsl.sql.SqlStatementListener;
+import com.example.querydsl.sql.SqlStatements;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.internal.ForeignKeys;
+import org.hibernate.event.spi.AbstractEvent;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 팀별 나이 집계를 메모리에 들고 있다가 커밋된 변경만큼만 더하고 뺀다. 조회는 팀 수만큼만 본다.
+ *  - count / sum : LongAdder
+ *  - max / min : 팀별 나이 -> 인원 수 (ConcurrentSkipListMap). 양 끝에서 인원이 0인 나이만 건너뛴다.
+ * 팀이 없는 회원은 세지 않는다. (team inner join 후 group by와 같다)
+ *
+ * 엔티티 이벤트로 못받는 변경(bulk JPQL, JdbcTemplate)이나 더하고 빼는 순서 차이로 생긴 오차는
+ * reconcile()이 실제 GROUP BY로 다시 세서 맞춘다. (주기적으로 + members / team bulk 쓰기 커밋 후)
+ * 변경 반영과 재집계의 교체는 this 락으로 순서를 정한다. GROUP BY는 락 밖에서 센다.
+ * 조회 중에 갱신되면 count와 sum이 서로 다른 시점일 수 있다. (대시보드 용도라 조회는 락을 잡지 않는다)
+ * hibernate 이벤트 리스너라 EntityManagerFactory보다 먼저 만들어지므로 JdbcTemplate으로 센다.
+ * */
+@Slf4j
+@Component
+public class TeamStats implements SqlStatementListener, DisposableBean,
+        PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService reconcileExecutor;
+    private final AtomicBoolean reconcileScheduled = new AtomicBoolean();
+    private final Object reconcileLock = new Object(); //재집계는 한번에 하나씩. 변경 반영은 막지 않는다.
+
+    private volatile Map<Long, TeamAggregate> teams = new ConcurrentHashMap<>();
+    private Set<Long> touchedWhileCounting; //세는 중이면 그동안 변경이 반영된 팀, 아니면 null. this 락 안에서만
+
+    public TeamStats(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reconcileExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "team-stats-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 회원이 있는 팀만, 팀 id 순
+     * */
+    public List<TeamStatsDto> stats() {
+        List<TeamStatsDto> result = new ArrayList<>();
+        for (Map.Entry<Long, TeamAggregate> entry : teams.entrySet()) {
+            TeamStatsDto dto = entry.getValue().toDto(entry.getKey());
+            if (dto != null) {
+                result.add(dto);
+            }
+        }
+        result.sort((a, b) -> Long.compare(a.getTeamId(), b.getTeamId()));
+        return result;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        requestReconcile();
+    }
+
+    /**
+     * 다시 세도록 예약한다. 여러번 불려도 한번만 돈다.
+     * */
+    public void requestReconcile() {
+        if (reconcileScheduled.compareAndSet(false, true)) {
+            reconcileExecutor.execute(() -> {
+                reconcileScheduled.set(false);
+                try {
+                    reconcile();
+                } catch (RuntimeException e) {
+                    log.error("team stats reconcile failed", e);
+                }
+            });
+        }
+    }
+
+    @Scheduled(initialDelayString = "${member.team-stats.reconcile-interval:PT1M}",
+            fixedDelayString = "${member.team-stats.reconcile-interval:PT1M}")
+    public void scheduledReconcile() {
+        requestReconcile();
+    }
+
+    /** 이미 예약된 재집계가 끝날 때까지 기다린다. (테스트용) */
+    void awaitReconcile() throws InterruptedException, ExecutionException, TimeoutException {
+        reconcileExecutor.submit(() -> { }).get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 실제 GROUP BY(team, age)로 다시 세서 통째로 바꾼다. 차이가 있었으면 로그를 남긴다.
+     *
+     * 세는 동안 커밋된 변경은 GROUP BY에 들어갔는지 알 수 없다. (더하면 두번 셀 수 있고, 버리면 빠질 수 있다)
+     * 그래서 그동안 변경이 반영된 팀은 이전 집계(변경까지 반영된)를 그대로 두고, 나머지 팀만 새로 센 값으로 바꾼다.
+     * 그 팀들은 다음 reconcile에서 맞춰진다.
+     * */
+    void reconcile() {
+        synchronized (reconcileLock) {
+            recount();
+        }
+    }
+
+    private void recount() {
+        synchronized (this) {
+            touchedWhileCounting = new HashSet<>();
+        }
+        Map<Long, TeamAggregate> fresh = new ConcurrentHashMap<>();
+        //회원이 없는 팀도 이름을 들고 있어야 나중에 들어온 회원의 집계에 팀 이름이 붙는다. (left join, 나이 null)
+        jdbcTemplate.query("select t.team_id, t.name, m.age, count(m.member_id) from team t"
+                        + " left join members m on m.team_id = t.team_id"
+                        + " group by t.team_id, t.name, m.age",
+                rs -> {
+                    String name = rs.getString(2);
+                    TeamAggregate aggregate = fresh.computeIfAbsent(rs.getLong(1), key -> new TeamAggregate(name));
+                    int age = rs.getInt(3);
+                    if (!rs.wasNull()) {
+                        aggregate.add(age, rs.getLong(4));
+                    }
+                });
+
+        Map<Long, TeamAggregate> previous;
+        synchronized (this) {
+            previous = teams;
+            for (Long teamId : touchedWhileCounting) {
+                TeamAggregate live = previous.get(teamId);
+                if (live == null) {
+                    fresh.remove(teamId);
+                } else {
+                    fresh.put(teamId, live);
+                }
+            }
+            touchedWhileCounting = null;
+            teams = fresh;
+        }
+
+        int drifted = 0;
+        for (TeamStatsDto expected : stats()) {
+            TeamAggregate old = previous.get(expected.getTeamId());
+            if (old == null || !Objects.equals(old.toDto(expected.getTeamId()), expected)) {
+                drifted++;
+            }
+        }
+        if (drifted > 0) {
+            log.info("team stats reconciled : {} of {} teams corrected", drifted, fresh.size());
+        }
+    }
+
+    // ---- hibernate 이벤트 ----
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Long teamId = teamId(event, event.getPersister(), event.getState());
+            if (teamId != null) {
+                int age = age(event.getPersister(), event.getState());
+                record(aggregates -> aggregates.add(teamId, age, 1));
+            }
+        } else if (event.getEntity() instanceof Team) {
+            long teamId = (Long) event.getId();
+            String name = ((Team) event.getEntity()).getName();
+            record(aggregates -> aggregates.rename(teamId, name));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member) {
+            if (event.getOldState() == null) {
+                markBulk(); //이전 값을 모르면 다시 센다.
+                return;
+            }
+            Long oldTeamId = teamId(event, event.getPersister(), event.getOldState());
+            int oldAge = age(event.getPersister(), event.getOldState());
+            Long teamId = teamId(event, event.getPersister(), event.getState());
+            int age = age(event.getPersister(), event.getState());
+            if (Objects.equals(oldTeamId, teamId) && oldAge == age) {
+                return;
+            }
+            record(aggregates -> {
+                if (oldTeamId != null) {
+                    aggregates.add(oldTeamId, oldAge, -1);
+                }
+                if (teamId != null) {
+                    aggregates.add(teamId, age, 1);
+                }
+            });
+        } else if (event.getEntity() instanceof Team) {
+            long teamId = (Long) event.getId();
+            String name = ((Team) event.getEntity()).getName();
+            record(aggregates -> aggregates.rename(teamId, name));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Long teamId = teamId(event, event.getPersister(), event.getDeletedState());
+            if (teamId != null) {
+                int age = age(event.getPersister(), event.getDeletedState());
+                record(aggregates -> aggregates.add(teamId, age, -1));
+            }
+        } else if (event.getEntity() instanceof Team) {
+            long teamId = (Long) event.getId();
+            record(aggregates -> aggregates.removeTeam(teamId));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private static Long teamId(AbstractEvent event, EntityPersister persister, Object[] state) {
+        Object team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+        //준영속 Team(먼저 읽어둔 팀으로 save)은 영속성 컨텍스트에 없으므로 엔티티에서 id를 읽는다.
+        return (Long) ForeignKeys.getEntityIdentifierIfNotUnsaved(Team.class.getName(), team, event.getSession());
+    }
+
+    private static int age(EntityPersister persister, Object[] state) {
+        return (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+    }
+
+    /**
+     * 엔티티 이벤트 밖에서 나간 members / team 쓰기 = bulk 연산
+     * */
+    @Override
+    public void onStatement(String sql) {
+        if (EntityWriteTracker.inEntityWrite()) {
+            return;
+        }
+        String table = SqlStatements.writeTarget(sql);
+        if (DataVersion.MEMBERS.equals(table) || DataVersion.TEAM.equals(table)) {
+            markBulk();
+        }
+    }
+
+    private void markBulk() {
+        Changes changes = currentChanges();
+        if (changes == null) {
+            requestReconcile();
+        } else {
+            changes.reconcile = true;
+        }
+    }
+
+    private void record(Change change) {
+        Changes changes = currentChanges();
+        if (changes == null) {
+            apply(List.of(change)); //트랜잭션 밖(auto commit)이면 바로 반영
+        } else {
+            changes.list.add(change);
+        }
+    }
+
+    private Changes currentChanges() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        //REQUIRES_NEW로 바깥 트랜잭션이 보류되면 바깥의 synchronization은 여기 보이지 않는다.
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Changes) {
+                return (Changes) synchronization;
+            }
+        }
+        Changes changes = new Changes();
+        TransactionSynchronizationManager.registerSynchronization(changes);
+        return changes;
+    }
+
+    private synchronized void apply(List<Change> changes) {
+        for (Change change : changes) {
+            change.apply(this);
+        }
+    }
+
+    private void add(long teamId, int age, long delta) {
+        touched(teamId);
+        teams.computeIfAbsent(teamId, key -> new TeamAggregate(null)).add(age, delta);
+    }
+
+    private void rename(long teamId, String name) {
+        touched(teamId);
+        teams.computeIfAbsent(teamId, key -> new TeamAggregate(name)).name = name;
+    }
+
+    private void removeTeam(long teamId) {
+        touched(teamId);
+        teams.remove(teamId);
+    }
+
+    private void touched(long teamId) {
+        if (touchedWhileCounting != null) {
+            touchedWhileCounting.add(teamId);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        reconcileExecutor.shutdownNow();
+    }
+
+    /** this 락 안에서 불린다. */
+    private interface Change {
+        void apply(TeamStats aggregates);
+    }
+
+    /**
+     * 트랜잭션 하나에서 생긴 변경. 커밋되면 반영하고 롤백되면 버린다.
+     * */
+    private class Changes implements TransactionSynchronization {
+        private final List<Change> list = new ArrayList<>();
+        private boolean reconcile;
+
+        @Override
+        public void afterCommit() {
+            if (!list.isEmpty()) {
+                apply(list);
+            }
+            if (reconcile) {
+                requestReconcile();
+            }
+        }
+    }
+
+    private static final class TeamAggregate {
+        private volatile String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final ConcurrentSkipListMap<Integer, LongAdder> ages = new ConcurrentSkipListMap<>();
+
+        TeamAggregate(String name) {
+            this.name = name;
+        }
+
+        void add(int age, long delta) {
+            ages.computeIfAbsent(age, key -> new LongAdder()).add(delta);
+            count.add(delta);
+            sum.add(delta * age);
+        }
+
+        TeamStatsDto toDto(Long teamId) {
+            long currentCount = count.sum();
+            if (currentCount <= 0) {
+                return null;
+            }
+            Integer max = null;
+            for (Map.Entry<Integer, LongAdder> entry : ages.descendingMap().entrySet()) {
+                if (entry.getValue().sum() > 0) {
+                    max = entry.getKey();
+                    break;
+                }
+            }
+            Integer min = null;
+            for (Map.Entry<Integer, LongAdder> entry : ages.entrySet()) {
+                if (entry.getValue().sum() > 0) {
+                    min = entry.getKey();
+                    break;
+                }
+            }
+            if (max == null) {
+                return null; //count와 나이별 인원이 잠깐 어긋난 순간
+            }
+            return new TeamStatsDto(teamId, name, currentCount, sum.sum(), max, min);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.querydsl.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberSearchBulkheadTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    MemberSearchLimits limits = new MemberSearchLimits();
+    MemberSearchBulkhead bulkhead;
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        limits.setDefaults(new MemberSearchLimits.Limit(1, 1, Duration.ofMillis(300), Duration.ofSeconds(5)));
+        limits.getShapes().put("teamName", new MemberSearchLimits.Limit(null, null, null, Duration.ofSeconds(1)));
+        bulkhead = new MemberSearchBulkhead(limits, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    /** 자리를 하나 잡고 release 될때까지 놓지 않는다. */
+    private Future<String> occupy(String shape) throws InterruptedException {
+        Future<String> future = executor.submit(() -> bulkhead.execute(shape, () -> {
+            running.countDown();
+            await(release);
+            return "done";
+        }));
+        assertThat(running.await(1, TimeUnit.SECONDS)).isTrue();
+        return future;
+    }
+
+    @Test
+    public void 대기시간_초과시_거절() throws Exception {
+        occupy("none");
+
+        assertThatThrownBy(() -> bulkhead.execute("none", () -> "second"))
+                .isInstanceOf(MemberSearchRejectedException.class)
+                .hasMessageContaining("timeout");
+        assertThat(registry.counter("member.search.rejected", "shape", "none", "reason", "timeout").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void 대기줄이_차면_바로_거절() throws Exception {
+        occupy("none");
+        Future<String> waiting = executor.submit(() -> bulkhead.execute("none", () -> "waiting"));
+        awaitWaiting("none", 1); //두번째 요청이 대기 줄에 들어갈 때까지
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> bulkhead.execute("none", () -> "third"))
+                .isInstanceOf(MemberSearchRejectedException.class)
+                .hasMessageContaining("full");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(100));
+
+        release.countDown();
+        assertThat(waiting.get(1, TimeUnit.SECONDS)).isEqualTo("waiting");
+    }
+
+    @Test
+    public void 모양별로_칸이_나뉜다() throws Exception {
+        occupy("none");
+
+        assertThat(bulkhead.execute("teamName", () -> "other shape")).isEqualTo("other shape");
+    }
+
+    @Test
+    public void 모양별_query_timeout() {
+        QueryTimeouts queryTimeouts = new QueryTimeouts(limits);
+
+        assertThat(bulkhead.execute("teamName", queryTimeouts::currentMillis)).isEqualTo(1000);
+        assertThat(bulkhead.execute("none", queryTimeouts::currentMillis)).isEqualTo(5000);
+        assertThat(queryTimeouts.currentMillis()).isEqualTo(5000); //밖에서는 기본값
+    }
+
+    private void awaitWaiting(String shape, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (bulkhead.waiting(shape) < count) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.querydsl.cache;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.sql.DataVersion;
+import com.example.querydsl.sql.SqlStatements;
+import com.example.querydsl.sql.TransactionChanges;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberSearchCacheTest {
+
+    DataVersion dataVersion = new DataVersion();
+    MemberSearchCache cache = new MemberSearchCache(new TransactionChanges(null, dataVersion), dataVersion, true, 2, Duration.ofMinutes(1), Duration.ZERO);
+    AtomicInteger queryCount = new AtomicInteger();
+
+    @Test
+    public void 같은조건은_캐시(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        MemberSearchCondition blankName = new MemberSearchCondition();
+        blankName.setTeamName("teamA");
+        blankName.setName(""); //빈 문자열은 조건 없음과 같다.
+
+        cache.get("search", condition, query());
+        cache.get("search", blankName, query());
+
+        assertThat(queryCount.get()).isEqualTo(1);
+        assertThat(cache.getResults().hitCount()).isEqualTo(1);
+        assertThat(cache.getResults().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void 쓰기SQL이_나가면_무효화(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        cache.get("search", condition, query());
+        dataVersion.onStatement("/* update com.example.querydsl.entity.Member member1 set member1.age = ?1 */ update members set age=age+1");
+        cache.get("search", condition, query());
+        dataVersion.onStatement("select member0_.member_id as member_i1_1_ from members member0_");
+        cache.get("search", condition, query());
+
+        assertThat(queryCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void 꺼낸_결과를_고쳐도_캐시는_그대로(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        cache.get("search", condition, query()).get(0).setName("changed");
+        cache.get("search", condition, query()).get(0).setAge(99);
+
+        MemberTeamDto cached = cache.get("search", condition, query()).get(0);
+        assertThat(queryCount.get()).isEqualTo(1);
+        assertThat(cached.getName()).isEqualTo("member1");
+        assertThat(cached.getAge()).isEqualTo(10);
+    }
+
+    @Test
+    public void 쓰기_직후에는_replica_지연동안_저장하지_않는다(){
+        MemberSearchCache lagAware = new MemberSearchCache(new TransactionChanges(null, dataVersion), dataVersion, true, 2,
+                Duration.ofMinutes(1), Duration.ofMinutes(1));
+        MemberSearchCondition condition = new MemberSearchCondition();
+        dataVersion.onStatement("update members set age=age+1");
+
+        lagAware.get("search", condition, query());
+        lagAware.get("search", condition, query());
+
+        assertThat(queryCount.get()).isEqualTo(2);
+        assertThat(lagAware.getResults().size()).isZero();
+    }
+
+    @Test
+    public void 크기제한(){
+        for (int age = 0; age < 3; age++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setAgeGoe(age);
+            cache.get("search", condition, query());
+        }
+        assertThat(cache.getResults().size()).isEqualTo(2);
+        assertThat(cache.getResults().evictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void 쓰기대상_테이블(){
+        assertThat(SqlStatements.writeTarget("insert into members (age, name, team_id, member_id) values (?, ?, ?, ?)")).isEqualTo("members");
+        assertThat(SqlStatements.writeTarget("/* delete com.example.querydsl.entity.Team */ delete from team where team_id=?")).isEqualTo("team");
+        assertThat(SqlStatements.writeTarget("update members set name=? where member_id=?")).isEqualTo("members");
+        assertThat(SqlStatements.writeTarget("select count(member0_.member_id) from members member0_")).isNull();
+        assertThat(SqlStatements.writeTarget("call next value for member_seq")).isNull();
+    }
+
+    private Supplier<List<MemberTeamDto>> query(){
+        return () -> {
+            queryCount.incrementAndGet();
+            return List.of(new MemberTeamDto(1L, "member1", 10, 1L, "teamA"));
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.querydsl.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate readTx;
+    TransactionTemplate writeTx;
+
+    @BeforeEach
+    void setUp() {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReplicaRoutingDataSource.PRIMARY, node("primary"));
+        targets.put("replica-0", node("replica-0"));
+        targets.put("replica-1", node("replica-1"));
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(Arrays.asList("replica-0", "replica-1"));
+        routing.setTargetDataSources(targets);
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readTx = new TransactionTemplate(transactionManager);
+        readTx.setReadOnly(true);
+        writeTx = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        PrimaryPin.unpin();
+    }
+
+    /** 각 DB에 자기 이름을 넣어두고 어느 DB로 갔는지 확인 */
+    private DataSource node(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("create table if not exists node(name varchar(20))");
+        template.execute("delete from node");
+        template.update("insert into node values (?)", name);
+        return dataSource;
+    }
+
+    private String readNode() {
+        return readTx.execute(status -> jdbcTemplate.queryForObject("select name from node", String.class));
+    }
+
+    @Test
+    public void readOnlyGoesToReplicas() {
+        assertThat(readNode()).startsWith("replica");
+        assertThat(Arrays.asList(readNode(), readNode())).containsExactlyInAnyOrder("replica-0", "replica-1");
+        assertThat(writeTx.execute(status -> jdbcTemplate.queryForObject("select name from node", String.class)))
+                .isEqualTo("primary");
+        //트랜잭션 밖도 primary
+        assertThat(jdbcTemplate.queryForObject("select name from node", String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    public void pinScope() {
+        try (PrimaryPin.Scope ignored = PrimaryPin.pin()) {
+            assertThat(readNode()).isEqualTo("primary");
+        }
+        assertThat(readNode()).startsWith("replica");
+    }
+
+    @Test
+    public void pinAfterWriteCommit() {
+        PrimaryPin primaryPin = new PrimaryPin(Duration.ofMinutes(1));
+        writeTx.execute(status -> {
+            primaryPin.onStatement("insert into node values ('x')");
+            return null;
+        });
+        assertThat(PrimaryPin.isPinned()).isTrue();
+        assertThat(readNode()).isEqualTo("primary");
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.querydsl.config;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.repository.MemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.servlet.http.Cookie;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 앱의 JpaTransactionManager + @Transactional(readOnly = true) 리포지토리 호출이 두 H2(primary, replica)로 나뉘는지 확인한다.
+ * replica에는 스키마만 복사하고 데이터는 넣지 않는다. (복제 지연으로 아직 아무것도 안 온 replica)
+ * */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "app.datasource.routing.enabled=true",
+        "app.datasource.routing.read-your-writes-window=1m",
+        "app.datasource.routing.replicas[0].url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "app.datasource.routing.replicas[0].username=sa",
+        "app.datasource.routing.replicas[0].password=",
+        "member.search-cache.enabled=false"
+})
+@AutoConfigureMockMvc
+class ReplicaRoutingIntegrationTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MockMvc mockMvc;
+
+    JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1", "sa", ""));
+    JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1", "sa", ""));
+
+    @BeforeEach
+    void setUp() {
+        replica.execute("drop all objects");
+        for (String statement : primary.queryForList("script nodata", String.class)) {
+            if (!statement.startsWith("--") && !statement.toUpperCase().startsWith("CREATE USER")) {
+                replica.execute(statement);
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        PrimaryPin.unpin();
+        primary.update("delete from member_name_gram");
+        primary.update("delete from members");
+    }
+
+    @Test
+    public void readOnly_리포지토리_호출은_replica로() {
+        memberRepository.save(new Member("routed", 10)); //쓰기 트랜잭션 -> primary
+        PrimaryPin.unpin(); //요청 밖 커밋은 이 스레드를 고정하므로 풀고 본다.
+
+        assertThat(search("routed")).isEmpty(); //replica에는 아직 없다.
+        try (PrimaryPin.Scope ignored = PrimaryPin.pin()) {
+            assertThat(search("routed")).extracting(MemberTeamDto::getName).containsExactly("routed");
+        }
+    }
+
+    @Test
+    public void 요청_밖의_커밋은_같은_스레드를_고정() {
+        memberRepository.save(new Member("batch", 10));
+
+        assertThat(search("batch")).extracting(MemberTeamDto::getName).containsExactly("batch");
+    }
+
+    @Test
+    public void 쓴_호출자만_primary에서_읽는다() throws Exception {
+        MvcResult written = mockMvc.perform(post("/v1/members/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\":\"pinned\",\"age\":10}]"))
+                .andExpect(status().isOk())
+                .andExpect(cookie().exists(PrimaryPin.COOKIE))
+                .andReturn();
+        Cookie pin = written.getResponse().getCookie(PrimaryPin.COOKIE);
+        String pinHeader = written.getResponse().getHeader(PrimaryPin.HEADER);
+
+        //같은 워커 스레드라도 고정을 안 보낸 다른 호출자는 replica (요청이 끝나면 스레드의 고정은 지워진다)
+        mockMvc.perform(get("/v1/members/keyset").param("name", "pinned"))
+                .andExpect(jsonPath("$.content.length()").value(0));
+
+        //쓴 호출자는 쿠키나 헤더로 primary에서 읽는다.
+        mockMvc.perform(get("/v1/members/keyset").param("name", "pinned").cookie(pin))
+                .andExpect(jsonPath("$.content[0].name").value("pinned"));
+        mockMvc.perform(get("/v1/members/keyset").param("name", "pinned").header(PrimaryPin.HEADER, pinHeader))
+                .andExpect(jsonPath("$.content[0].name").value("pinned"));
+    }
+
+    @Test
+    public void 만료된_고정은_무시() throws Exception {
+        mockMvc.perform(post("/v1/members/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\":\"expired\",\"age\":10}]"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/v1/members/keyset").param("name", "expired")
+                        .header(PrimaryPin.HEADER, String.valueOf(System.currentTimeMillis() - 1)))
+                .andExpect(jsonPath("$.content.length()").value(0));
+    }
+
+    private List<MemberTeamDto> search(String name) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setName(name);
+        return memberRepository.search(condition);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.querydsl.controller;
+
+import com.example.querydsl.dto.MemberCursor;
+import com.example.querydsl.dto.MemberSortKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "member.ingest.max-rows=2")
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void 잘못된_커서는_400() throws Exception {
+        mockMvc.perform(get("/v1/members/keyset").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void 잘못된_변경피드_커서는_400() throws Exception {
+        mockMvc.perform(get("/v1/members/changes").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void 정렬키가_다른_커서는_400() throws Exception {
+        String idCursor = new MemberCursor(MemberSortKey.ID, null, 1L).encode();
+        mockMvc.perform(get("/v1/members/keyset").param("after", idCursor).param("sort", "AGE"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void 없는_필드는_400() throws Exception {
+        mockMvc.perform(get("/v1/members").param("fields", "memberId,password"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v1/members").param("fields", " , "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v1/members").param("fields", "memberId,name"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void 벌크_등록_행수가_넘치면_413() throws Exception {
+        mockMvc.perform(post("/v1/members/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\":\"a\",\"age\":1},{\"name\":\"b\",\"age\":2},{\"name\":\"c\",\"age\":3}]"))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    public void size는_범위로_자른다() throws Exception {
+        mockMvc.perform(get("/v1/members/keyset").param("size", "0"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/v1/members/keyset").param("size", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.querydsl.controller;
+
+import com.example.querydsl.sql.DataVersion;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberSearchETagsTest {
+
+    DataVersion dataVersion = new DataVersion();
+    MemberSearchETags eTags = new MemberSearchETags(dataVersion, true);
+
+    @Test
+    public void 버전이_같으면_304() {
+        String etag = firstResponseETag("rows");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(eTags.checkNotModified(request(etag, response), "rows")).isTrue();
+        assertThat(response.getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    public void 쓰기가_있으면_다시_조회() {
+        String etag = firstResponseETag("rows");
+        dataVersion.onStatement("update members set age=? where member_id=?"); //bulk update도 SQL로 잡힌다.
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(eTags.checkNotModified(request(etag, response), "rows")).isFalse();
+        assertThat(response.getHeader("ETag")).isNotEqualTo(etag);
+    }
+
+    @Test
+    public void 응답_형식이_다르면_다른_ETag() {
+        assertThat(firstResponseETag("rows")).isNotEqualTo(firstResponseETag("columnar"));
+    }
+
+    private String firstResponseETag(String representation) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(eTags.checkNotModified(request(null, response), representation)).isFalse();
+        assertThat(response.getHeader("Last-Modified")).isNotNull();
+        return response.getHeader("ETag");
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/members");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+}
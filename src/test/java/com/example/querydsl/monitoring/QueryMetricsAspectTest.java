@@ -0,0 +1,66 @@
+package com.example.querydsl.monitoring;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.repository.MemberJPARepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class QueryMetricsAspectTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired MemberJPARepository memberJPARepository;
+    @Autowired MeterRegistry registry;
+
+    @Test
+    public void 호출별_메트릭(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+
+        memberJPARepository.findAll_Querydsl();
+
+        Timer latency = registry.find("member.query.latency").tag("method", "findAll_Querydsl").timer();
+        assertThat(latency).isNotNull();
+        assertThat(latency.count()).isGreaterThanOrEqualTo(1);
+
+        DistributionSummary rows = registry.find("member.query.rows").tag("method", "findAll_Querydsl").summary();
+        assertThat(rows.max()).isEqualTo(2);
+
+        //member 2건 조회 -> select 1번, 엔티티 2개 로딩
+        DistributionSummary statements = registry.find("member.query.statements").tag("method", "findAll_Querydsl").summary();
+        DistributionSummary entities = registry.find("member.query.entities").tag("method", "findAll_Querydsl").summary();
+        assertThat(statements.max()).isEqualTo(1);
+        assertThat(entities.max()).isEqualTo(2);
+    }
+
+    @Test
+    public void 검색조건_모양별_태그(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(10);
+
+        memberJPARepository.searchByBuilder(condition);
+
+        assertThat(registry.find("member.query.latency")
+                .tags("method", "searchByBuilder", "shape", "teamName+ageGoe").timer()).isNotNull();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.querydsl.monitoring;
+
+import com.example.querydsl.dto.MemberIngestRow;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.repository.MemberIngestRepository;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "member.slow-query.threshold=0ms") //모든 쿼리를 느린 쿼리로
+@Transactional
+class SlowQueryRecorderTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired SlowQueryRecorder recorder;
+    @Autowired MemberIngestRepository memberIngestRepository;
+
+    @BeforeEach
+    void setUp() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+        recorder.clear();
+    }
+
+    @Test
+    public void JPQL_SQL_바인드값_건수(){
+        queryFactory.selectFrom(member).where(member.age.goe(10)).fetch();
+
+        SlowQuery query = recorder.recent().get(0);
+        assertThat(query.getSource()).contains("select member1").contains("member1.age >= ?1");
+        assertThat(query.getRows()).isEqualTo(2);
+        assertThat(query.getStatements()).hasSize(1);
+        assertThat(query.getStatements().get(0).getSql()).containsIgnoringCase("from members");
+        assertThat(query.getStatements().get(0).getParams()).containsExactly(List.of("10"));
+        assertThat(query.getStatements().get(0).isBatch()).isFalse();
+    }
+
+    @Test
+    public void iterate는_닫을때_기록(){
+        try (CloseableIterator<Member> rows = queryFactory.selectFrom(member).where(member.age.goe(10)).iterate()) {
+            assertThat(recorder.recent()).isEmpty(); //읽는 중에는 아직 없다.
+            while (rows.hasNext()) {
+                rows.next();
+            }
+        }
+
+        SlowQuery query = recorder.recent().get(0);
+        assertThat(query.getSource()).contains("member1.age >= ?1");
+        assertThat(query.getRows()).isEqualTo(2);
+        assertThat(query.getStatements()).singleElement()
+                .satisfies(statement -> assertThat(statement.getSql()).containsIgnoringCase("from members"));
+    }
+
+    @Test
+    public void querydsl_밖의_SQL(){
+        em.createQuery("select m from Member m where m.name = :name", Member.class)
+                .setParameter("name", "member2")
+                .getResultList();
+
+        SlowQuery query = recorder.recent().get(0);
+        assertThat(query.getSource()).isNull();
+        assertThat(query.getStatements().get(0).getParams()).containsExactly(List.of("member2"));
+    }
+
+    @Test
+    public void batch는_행_수와_앞의_몇_행(){
+        List<MemberIngestRow> rows = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            rows.add(new MemberIngestRow("batch" + i, i, null));
+        }
+        memberIngestRepository.saveAll(rows); //JDBC executeBatch
+
+        SlowQuery.Statement insert = recorder.recent().stream()
+                .flatMap(query -> query.getStatements().stream())
+                .filter(statement -> statement.getSql() != null && statement.getSql().startsWith("insert into members"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(insert.isBatch()).isTrue();
+        assertThat(insert.getBatchSize()).isEqualTo(7);
+        assertThat(insert.getParams()).hasSize(SlowQueryRecorder.MAX_BATCH_ROWS);
+        assertThat(insert.getParams().get(0)).contains("batch0");
+        assertThat(insert.getParams().get(1)).contains("batch1");
+    }
+
+    @Test
+    public void 가장_느린_N개(){
+        SlowQueryBuffer buffer = new SlowQueryBuffer(3);
+        for (long duration : new long[]{5, 1, 9, 3, 7, 2}) {
+            buffer.add(new SlowQuery(Instant.now(), "t", null, Collections.emptyList(), duration, -1));
+        }
+
+        List<SlowQuery> slowest = buffer.slowest();
+        assertThat(slowest).extracting("durationNanos").containsExactly(9L, 7L, 5L);
+        assertThat(buffer.recent()).extracting("durationNanos").containsExactlyInAnyOrder(3L, 7L, 2L);
+        assertThat(buffer.recorded()).isEqualTo(6);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.querydsl.projection;
+
+import com.example.querydsl.dto.MemberDto;
+import com.example.querydsl.dto.UserDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.QMember;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Projections.bean / fields와 같은 결과가 나오는지 비교한다.
+ * */
+@SpringBootTest
+@Transactional
+class FastProjectionsTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    void setUp() {
+        em.persist(new Member("member1", 10));
+        em.persist(new Member("member2", 20));
+        em.persist(new Member(null, 30)); //null은 건너뛴다.
+    }
+
+    @Test
+    public void bean() {
+        List<MemberDto> expected = queryFactory
+                .select(Projections.bean(MemberDto.class, member.name, member.age))
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        List<MemberDto> result = queryFactory
+                .select(FastProjections.bean(MemberDto.class, member.name, member.age))
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        assertThat(result).isEqualTo(expected).hasSize(3);
+    }
+
+    @Test
+    public void 별칭과_서브쿼리() {
+        QMember subMember = new QMember("subMember");
+
+        List<UserDto> expected = queryFactory
+                .select(Projections.fields(UserDto.class,
+                        member.name.as("userName"),
+                        ExpressionUtils.as(JPAExpressions.select(subMember.age.max()).from(subMember), "age")))
+                .from(member)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        List<UserDto> result = queryFactory
+                .select(FastProjections.fields(UserDto.class,
+                        member.name.as("userName"),
+                        ExpressionUtils.as(JPAExpressions.select(subMember.age.max()).from(subMember), "age")))
+                .from(member)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        assertThat(result).usingRecursiveFieldByFieldElementComparator().isEqualTo(expected);
+    }
+
+    @Test
+    public void 없는_이름은_무시() {
+        List<MemberDto> result = queryFactory
+                .select(FastProjections.bean(MemberDto.class, member.name, member.id.as("unknown")))
+                .from(member)
+                .where(member.name.eq("member1"))
+                .fetch();
+
+        assertThat(result).extracting(MemberDto::getName).containsExactly("member1");
+    }
+
+    @Test
+    public void 타입이_다르면_실패() {
+        assertThatThrownBy(() -> FastProjections.fields(MemberDto.class, member.age.as("name")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
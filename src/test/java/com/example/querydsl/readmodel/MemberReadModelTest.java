@@ -0,0 +1,182 @@
+package com.example.querydsl.readmodel;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberSlice;
+import com.example.querydsl.dto.MemberSortKey;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.NameMatch;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.repository.MemberRepository;
+import com.example.querydsl.repository.TeamRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 커밋 후에 반영되는지 봐야 해서 @Transactional 없이 테스트한다. (끝나고 직접 지운다)
+ * 비동기 rebuild를 기다리지 않도록 rebuild()를 직접 부른다.
+ * */
+@SpringBootTest(properties = "member.read-model.enabled=true")
+class MemberReadModelTest {
+
+    @Autowired
+    MemberReadModel readModel;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+    Team team;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        team = teamRepository.save(new Team("readModelTeam"));
+        memberRepository.save(new Member("rm1", 10, team));
+        memberRepository.save(new Member("rm2", 20, team));
+        memberRepository.save(new Member("rm3", 30, team));
+        readModel.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.name in :names")
+                    .setParameter("names", List.of("rm1", "rm2", "rm3", "rm4"))
+                    .executeUpdate();
+            em.createQuery("delete from Team t where t.id = :teamId").setParameter("teamId", team.getId()).executeUpdate();
+        });
+        readModel.rebuild();
+    }
+
+    @Test
+    public void 팀과_나이범위로_검색() {
+        MemberSearchCondition condition = condition();
+        condition.setAgeGoe(15);
+        condition.setAgeLoe(30);
+
+        assertThat(readModel.search(condition))
+                .extracting(MemberTeamDto::getName)
+                .containsExactly("rm2", "rm3");
+        assertThat(readModel.search(condition)).allMatch(dto -> "readModelTeam".equals(dto.getTeamName()));
+    }
+
+    @Test
+    public void 이름_부분일치() {
+        MemberSearchCondition condition = condition();
+        condition.setName("m3");
+        condition.setNameMatch(NameMatch.CONTAINS);
+
+        assertThat(readModel.search(condition)).extracting(MemberTeamDto::getName).containsExactly("rm3");
+    }
+
+    @Test
+    public void 커밋된_엔티티_변경만_반영() {
+        memberRepository.save(new Member("rm4", 40, team));
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("rolledBack", 50, em.find(Team.class, team.getId())));
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status ->
+                em.createQuery("select m from Member m where m.name = 'rm1'", Member.class).getSingleResult().setTeam(null));
+
+        assertThat(readModel.isReady()).isTrue();
+        assertThat(names(readModel.search(condition()))).containsExactly("rm2", "rm3", "rm4");
+    }
+
+    @Test
+    public void 준영속_팀으로_저장해도_팀에_들어간다() {
+        memberRepository.save(new Member("rm4", 40, team)); //setUp에서 저장한 뒤 준영속이 된 team
+
+        assertThat(names(readModel.search(condition()))).containsExactly("rm1", "rm2", "rm3", "rm4");
+    }
+
+    @Test
+    public void 팀_이름_변경() {
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, team.getId()).setName("renamedTeam"));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("renamedTeam");
+        assertThat(readModel.search(condition)).hasSize(3);
+        assertThat(readModel.search(condition())).isEmpty();
+
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, team.getId()).setName("readModelTeam"));
+    }
+
+    @Test
+    public void bulk_변경은_다시_읽어서_반영() {
+        transactionTemplate.executeWithoutResult(status ->
+                em.createQuery("update Member m set m.age = m.age + 1 where m.team.id = :teamId")
+                        .setParameter("teamId", team.getId())
+                        .executeUpdate());
+        readModel.rebuild();
+
+        assertThat(readModel.isReady()).isTrue();
+        assertThat(readModel.search(condition())).extracting(MemberTeamDto::getAge).containsExactly(11, 21, 31);
+    }
+
+    @Test
+    public void slice_size는_1이상() {
+        MemberReadModelRepository repository = new MemberReadModelRepository(readModel);
+
+        assertThatThrownBy(() -> repository.searchSlice(condition(), MemberSortKey.ID, null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(repository.searchSlice(condition(), MemberSortKey.ID, null, 2).getContent())
+                .extracting(MemberTeamDto::getName)
+                .containsExactly("rm1", "rm2");
+    }
+
+    @Test
+    public void 페이지는_DB와_같은_순서() {
+        memberRepository.save(new Member("rm4", 15)); //팀 없음 -> 팀 두개를 병합
+        MemberReadModelRepository repository = new MemberReadModelRepository(readModel);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setName("rm");
+        condition.setNameMatch(NameMatch.PREFIX);
+
+        for (MemberSortKey sortKey : MemberSortKey.values()) {
+            List<MemberTeamDto> paged = new ArrayList<>();
+            String after = null;
+            do {
+                MemberSlice slice = repository.searchSlice(condition, sortKey, after, 1);
+                paged.addAll(slice.getContent());
+                after = slice.getNextCursor();
+            } while (after != null);
+            assertThat(paged).isEqualTo(memberRepository.searchSlice(condition, sortKey, null, 10).getContent());
+        }
+
+        Page<MemberTeamDto> page = repository.searchPageSimple(condition, PageRequest.of(1, 2));
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent()).extracting(MemberTeamDto::getName).containsExactly("rm3", "rm4");
+    }
+
+    private MemberSearchCondition condition() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("readModelTeam");
+        return condition;
+    }
+
+    private static List<String> names(List<MemberTeamDto> result) {
+        return result.stream().map(MemberTeamDto::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.querydsl.readmodel;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TeamSliceTest {
+
+    @Test
+    public void 나이_id_순서_위치에_끼우고_뺀다() {
+        TeamSlice slice = new TeamSlice(1L, "teamA", new int[]{10, 20, 20, 30}, new long[]{1, 2, 5, 3}, new String[]{"a", "b", "e", "c"});
+
+        TeamSlice added = slice.with(4, "d", 20);
+        assertThat(added.ages).containsExactly(10, 20, 20, 20, 30);
+        assertThat(added.memberIds).containsExactly(1, 2, 4, 5, 3);
+        assertThat(added.names).containsExactly("a", "b", "d", "e", "c");
+        assertThat(slice.memberIds).containsExactly(1, 2, 5, 3); //원래 slice는 그대로
+
+        TeamSlice removed = added.without(2, 20);
+        assertThat(removed.memberIds).containsExactly(1, 4, 5, 3);
+        assertThat(removed.names).containsExactly("a", "d", "e", "c");
+
+        assertThat(removed.without(2, 20)).isSameAs(removed); //없는 회원
+        assertThat(removed.without(3, 10)).isSameAs(removed); //나이가 다르면 못 찾는다
+        assertThat(slice.with(9, "z", 99).memberIds).containsExactly(1, 2, 5, 3, 9);
+        assertThat(slice.with(0, "y", 1).memberIds).containsExactly(0, 1, 2, 5, 3);
+
+        //member_id 순 인덱스도 같이 바뀐다.
+        assertThat(idOrder(added)).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(idOrder(removed)).containsExactly(1L, 3L, 4L, 5L);
+    }
+
+    private static List<Long> idOrder(TeamSlice slice) {
+        List<Long> ids = new ArrayList<>();
+        TeamSlice.Scan scan = slice.scanById(new MemberSearchCondition().normalize(), null);
+        while (scan.advance()) {
+            ids.add(scan.memberId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * chunk마다 커밋되므로 @Transactional 없이 테스트하고, 만든 데이터는 직접 지운다.
+ * */
+@SpringBootTest
+class MemberBulkRepositoryTest {
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Team team;
+    List<Member> members = new ArrayList<>();
+    BooleanExpression bulkMembers = member.name.startsWith("bulk");
+
+    @BeforeEach
+    void setUp() {
+        team = teamRepository.save(new Team("bulkTeam"));
+        for (int i = 0; i < 25; i++) {
+            members.add(new Member("bulk" + i, i, team));
+        }
+        memberRepository.saveAll(members);
+    }
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch(members);
+        teamRepository.delete(team);
+    }
+
+    @Test
+    public void updateInChunks() {
+        List<BulkProgress> progresses = new ArrayList<>();
+        BulkOptions options = BulkOptions.builder().chunkSize(7).progress(progresses::add).build();
+
+        BulkProgress result = memberBulkRepository.update(bulkMembers.and(member.age.lt(20)),
+                MemberAssignments.create().set(member.age, member.age.add(100)), options);
+
+        assertThat(result.isDone()).isTrue();
+        assertThat(result.getAffectedRows()).isEqualTo(20);
+        assertThat(result.getChunks()).isEqualTo(3); //7, 7, 6
+        assertThat(progresses).extracting("affectedRows").containsExactly(7L, 14L, 20L);
+        assertThat(memberRepository.findAll()).filteredOn(m -> m.getName().startsWith("bulk"))
+                .extracting("age")
+                .allMatch(age -> (int) age >= 20);
+    }
+
+    @Test
+    public void deleteInChunks() {
+        BulkProgress result = memberBulkRepository.delete(bulkMembers.and(member.age.goe(10)),
+                BulkOptions.builder().chunkSize(10).build());
+
+        assertThat(result.getAffectedRows()).isEqualTo(15);
+        assertThat(result.getChunks()).isEqualTo(2);
+        assertThat(memberRepository.findAll()).filteredOn(m -> m.getName().startsWith("bulk")).hasSize(10);
+    }
+
+    @Test
+    public void rejectSurroundingTransaction() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                memberBulkRepository.delete(bulkMembers)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
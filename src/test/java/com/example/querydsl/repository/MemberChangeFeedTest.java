@@ -0,0 +1,75 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.dto.MemberChange;
+import com.example.querydsl.dto.MemberChanges;
+import com.example.querydsl.entity.Member;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = "member.changes.settle-delay=0s")
+@Transactional
+class MemberChangeFeedTest {
+
+    @Autowired
+    MemberChangeFeed memberChangeFeed;
+    @Autowired
+    EntityManager em;
+
+    String cursor;
+
+    @BeforeEach
+    void setUp() {
+        //다른 테스트가 남긴 변경(tombstone 등)은 건너뛴다.
+        MemberChanges changes;
+        do {
+            changes = memberChangeFeed.changesSince(cursor, 1000);
+            cursor = changes.getNextCursor();
+        } while (changes.isHasMore());
+    }
+
+    @Test
+    public void 커서_다음의_변경만_준다() throws InterruptedException {
+        Member member1 = new Member("member1", 10);
+        Member member2 = new Member("member2", 20);
+        Member member3 = new Member("member3", 30);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.flush();
+        Thread.sleep(5); //settle-delay 0 : 방금 쓴 시각보다 뒤에서 조회
+
+        MemberChanges first = memberChangeFeed.changesSince(cursor, 2);
+        assertThat(first.getChanges()).extracting(MemberChange::getMemberId).containsExactly(member1.getId(), member2.getId());
+        assertThat(first.isHasMore()).isTrue();
+
+        MemberChanges second = memberChangeFeed.changesSince(first.getNextCursor(), 2);
+        assertThat(second.getChanges()).extracting(MemberChange::getMemberId).containsExactly(member3.getId());
+        assertThat(second.isHasMore()).isFalse();
+
+        //수정 / 삭제
+        member1.setAge(11);
+        em.remove(member2);
+        em.flush();
+        Thread.sleep(5);
+
+        MemberChanges third = memberChangeFeed.changesSince(second.getNextCursor(), 10);
+        assertThat(third.getChanges())
+                .extracting(MemberChange::getType, MemberChange::getMemberId, MemberChange::getAge)
+                .containsExactlyInAnyOrder(
+                        tuple(MemberChange.Type.UPSERT, member1.getId(), 11),
+                        tuple(MemberChange.Type.DELETE, member2.getId(), null));
+
+        //새 변경이 없으면 같은 커서를 돌려준다.
+        MemberChanges empty = memberChangeFeed.changesSince(third.getNextCursor(), 10);
+        assertThat(empty.getChanges()).isEmpty();
+        assertThat(empty.getNextCursor()).isEqualTo(third.getNextCursor());
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.dto.MemberIngestResult;
+import com.example.querydsl.dto.MemberIngestRow;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.NameMatch;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = "member.ingest.batch-size=2")
+@Transactional
+class MemberIngestRepositoryTest {
+
+    @Autowired
+    MemberIngestRepository memberIngestRepository;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    EntityManager em;
+
+    @Test
+    public void 팀을_이름으로_찾아서_넣는다() {
+        Team teamA = new Team("ingestTeamA");
+        em.persist(teamA);
+        em.flush();
+
+        MemberIngestResult result = memberIngestRepository.saveAll(Arrays.asList(
+                new MemberIngestRow("ingest member1", 10, "ingestTeamA"),
+                new MemberIngestRow("ingest member2", 20, "ingestTeamB"),
+                new MemberIngestRow("ingest member3", 30, "ingestTeamB"),
+                new MemberIngestRow("ingest member4", 40, null)));
+        em.clear();
+
+        assertThat(result.getIds()).hasSize(4).doesNotHaveDuplicates();
+        assertThat(result.getTeamsCreated()).isEqualTo(1);
+
+        List<Member> members = em.createQuery("select m from Member m left join fetch m.team where m.id in :ids order by m.id", Member.class)
+                .setParameter("ids", result.getIds())
+                .getResultList();
+        assertThat(members)
+                .extracting(Member::getName, Member::getAge, m -> m.getTeam() == null ? null : m.getTeam().getName())
+                .containsExactly(
+                        tuple("ingest member1", 10, "ingestTeamA"),
+                        tuple("ingest member2", 20, "ingestTeamB"),
+                        tuple("ingest member3", 30, "ingestTeamB"),
+                        tuple("ingest member4", 40, null));
+        assertThat(members.get(0).getTeam().getId()).isEqualTo(teamA.getId());
+        assertThat(members.get(1).getTeam().getId()).isEqualTo(members.get(2).getTeam().getId());
+    }
+
+    @Test
+    public void 빈_팀이름은_팀_없음() {
+        MemberIngestResult result = memberIngestRepository.saveAll(Arrays.asList(
+                new MemberIngestRow("blank member1", 10, ""),
+                new MemberIngestRow("blank member2", 20, "   ")));
+        em.clear();
+
+        assertThat(result.getTeamsCreated()).isZero();
+        List<Member> members = em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                .setParameter("ids", result.getIds())
+                .getResultList();
+        assertThat(members).hasSize(2).allSatisfy(member -> assertThat(member.getTeam()).isNull());
+    }
+
+    @Test
+    public void auditing_필드는_batch마다_한번_정한다() {
+        MemberIngestResult result = memberIngestRepository.saveAll(Arrays.asList(
+                new MemberIngestRow("audit member1", 10, null),
+                new MemberIngestRow("audit member2", 20, null),
+                new MemberIngestRow("audit member3", 30, null)));
+        em.clear();
+
+        List<Member> members = em.createQuery("select m from Member m where m.id in :ids order by m.id", Member.class)
+                .setParameter("ids", result.getIds())
+                .getResultList();
+        assertThat(members).allSatisfy(member -> {
+            assertThat(member.getCreatedDate()).isNotNull();
+            assertThat(member.getLastModifiedDate()).isEqualTo(member.getCreatedDate());
+            assertThat(member.getCreatedBy()).isNull(); //AuditorAware가 없으면 persist와 같이 null
+        });
+        //batch-size=2 : 앞의 두 건은 같은 batch
+        assertThat(members.get(1).getCreatedDate()).isEqualTo(members.get(0).getCreatedDate());
+    }
+
+    @Test
+    public void 이름_gram도_같이_넣는다() {
+        memberIngestRepository.saveAll(Arrays.asList(
+                new MemberIngestRow("park jihoon", 10, null),
+                new MemberIngestRow("lee jiwoo", 20, null)));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setName("jihoo");
+        condition.setNameMatch(NameMatch.CONTAINS);
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        assertThat(result).extracting(MemberTeamDto::getName).containsExactly("park jihoon");
+    }
+
+    @Test
+    public void persist와_섞여도_id가_겹치지_않는다() {
+        Member persisted = new Member("persisted", 10);
+        em.persist(persisted);
+
+        MemberIngestResult result = memberIngestRepository.saveAll(Arrays.asList(
+                new MemberIngestRow("ingested", 20, null)));
+        em.flush();
+
+        assertThat(result.getIds()).doesNotContain(persisted.getId());
+    }
+}
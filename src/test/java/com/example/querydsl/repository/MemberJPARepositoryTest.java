@@ -1,11 +1,18 @@
 package com.example.querydsl.repository;
 
+import com.example.querydsl.dto.MemberColumns;
+import com.example.querydsl.dto.MemberField;
 import com.example.querydsl.dto.MemberSearchCondition;
 import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.NameMatch;
 import com.example.querydsl.entity.Member;
 import com.example.querydsl.entity.Team;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.querydsl.core.QueryFactory;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,7 +22,9 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -88,4 +97,154 @@ class MemberJPARepositoryTest {
         }
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void streamTest(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 0; i < 25; i++) {
+            em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //fetchSize보다 많은 건수를 읽어도 커서로 끝까지 읽는다.
+        List<MemberTeamDto> result = new ArrayList<>();
+        long count = memberJPARepository.streamByWhereParam(condition, 5, result::add);
+
+        assertThat(count).isEqualTo(13);
+        assertThat(result).hasSize(13)
+                .allSatisfy(dto -> assertThat(dto.getTeamName()).isEqualTo("teamA"));
+    }
+
+    @Autowired MemberSearchTemplates memberSearchTemplates;
+
+    @Test
+    public void templateTest(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+
+        long misses = memberSearchTemplates.missCount();
+        long hits = memberSearchTemplates.hitCount();
+
+        //querydsl 동적쿼리와 결과가 같다.
+        assertThat(memberJPARepository.searchByTemplate(condition))
+                .isEqualTo(memberJPARepository.searchByBuilder(condition));
+
+        //같은 모양(teamName + ageGoe)이면 값이 달라도 템플릿을 재사용한다.
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(15);
+        assertThat(memberJPARepository.searchByTemplate(condition))
+                .extracting(MemberTeamDto::getName).containsExactly("member2");
+
+        assertThat(memberSearchTemplates.missCount() - misses).isLessThanOrEqualTo(1);
+        assertThat(memberSearchTemplates.hitCount() - hits).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void templatePrefixTest(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30));
+        em.persist(new Member("other", 20, teamA));
+
+        //앞부분 일치는 템플릿이 없어서 searchByWhereParam으로 조회한다.
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setName("member");
+        condition.setNameMatch(NameMatch.PREFIX);
+
+        //나이 조건이 한쪽만 있어도 된다.
+        condition.setAgeGoe(20);
+        assertThat(memberJPARepository.searchByTemplate(condition))
+                .extracting(MemberTeamDto::getName).containsExactlyInAnyOrder("member2", "member3");
+
+        //범위
+        condition.setAgeGoe(15);
+        condition.setAgeLoe(25);
+        assertThat(memberJPARepository.searchByTemplate(condition))
+                .extracting(MemberTeamDto::getName).containsExactly("member2");
+        assertThat(memberJPARepository.searchByTemplate(condition))
+                .isEqualTo(memberJPARepository.searchByBuilder(condition));
+    }
+
+    @Test
+    public void searchFieldsTest(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.persist(new Member("member2", 20));
+
+        em.flush();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(15);
+
+        //team 조인 없이 members만 읽는다.
+        statistics.clear();
+        List<Map<String, Object>> idAndName = memberJPARepository.searchFields(condition, MemberField.parse("name, memberId"));
+        assertThat(idAndName).hasSize(1);
+        assertThat(idAndName.get(0)).containsExactly(
+                entry("memberId", member1.getId()), entry("name", "member1"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getQueries()).singleElement().asString().doesNotContain("join");
+
+        //teamId는 FK 컬럼, teamName은 left join
+        condition.setAgeLoe(null);
+        statistics.clear();
+        List<Map<String, Object>> teams = memberJPARepository.searchFields(condition, MemberField.parse("teamId,teamName"));
+        assertThat(statistics.getQueries()).singleElement().asString().contains("left join");
+        assertThat(teams).extracting(row -> row.get("teamName")).containsExactlyInAnyOrder("teamA", null);
+        assertThat(teams).extracting(row -> row.get("teamId")).containsExactlyInAnyOrder(teamA.getId(), null);
+
+        assertThatThrownBy(() -> MemberField.parse("password")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void searchColumnsTest() throws JsonProcessingException {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+        MemberColumns columns = memberJPARepository.searchColumns(condition, 2);
+
+        //행 기준 결과와 같다.
+        List<MemberTeamDto> rows = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            rows.add(new MemberTeamDto(columns.memberId(i), columns.name(i), columns.age(i), columns.teamId(i), columns.teamName(i)));
+        }
+        assertThat(rows).containsExactlyInAnyOrderElementsOf(memberJPARepository.searchByBuilder(condition));
+
+        //팀 이름은 사전에 한번만 들어간다.
+        String json = new ObjectMapper().writeValueAsString(columns);
+        assertThat(json).containsOnlyOnce("teamA");
+        assertThat(json).startsWith("{\"size\":3,\"memberId\":[");
+    }
+}
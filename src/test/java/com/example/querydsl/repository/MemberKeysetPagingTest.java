@@ -0,0 +1,91 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.dto.MemberCursor;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberSortKey;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.QMemberTeamDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * keyset 페이지가 같은 위치의 offset 페이지와 같은지 확인한다.
+ * 페이지 깊이별 시간 비교는 JMH의 KeysetPagingBenchmark
+ * */
+@SpringBootTest
+@Transactional
+class MemberKeysetPagingTest {
+
+    static final int TOTAL = 200;
+    static final int PAGE_SIZE = 10;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < TOTAL; i++) {
+            em.persist(new Member("member" + i, i % 100, i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void offset과_keyset이_같은_페이지(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        for (int page : new int[]{0, 1, 10, 19}) {
+            long offset = PAGE_SIZE * (long) page;
+            String after = page == 0 ? null : cursorBefore(offset);
+
+            List<MemberTeamDto> byOffset = offsetPage(offset);
+            List<MemberTeamDto> byKeyset = memberRepository.searchSlice(condition, MemberSortKey.ID, after, PAGE_SIZE).getContent();
+            assertThat(byKeyset).isEqualTo(byOffset);
+        }
+    }
+
+    private List<MemberTeamDto> offsetPage(long offset){
+        return queryFactory.select(new QMemberTeamDto(member.id.as("memberId"), member.name, member.age, team.id.as("teamId"), team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team(), team)
+                .orderBy(member.id.asc())
+                .offset(offset)
+                .limit(PAGE_SIZE)
+                .fetch();
+    }
+
+    /**
+     * offset 바로 앞 행의 id로 커서를 만든다. (UI에서 이전 페이지를 넘겨 받은 상황과 같다)
+     * */
+    private String cursorBefore(long offset){
+        Long lastId = queryFactory.select(member.id)
+                .from(member)
+                .orderBy(member.id.asc())
+                .offset(offset - 1)
+                .limit(1)
+                .fetchOne();
+        return new MemberCursor(MemberSortKey.ID, null, lastId).encode();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.NameMatch;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.example.querydsl.entity.QMemberNameGram.memberNameGram;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberNameSearchTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired JPAQueryFactory queryFactory;
+
+    Member kim;
+
+    @BeforeEach
+    void setUp() {
+        Team team = new Team("teamA");
+        em.persist(team);
+        kim = new Member("kim minsu", 10, team);
+        em.persist(kim);
+        em.persist(new Member("park minji", 20, team));
+        em.persist(new Member("lee minsu", 30, team));
+        em.persist(new Member("ki", 40, team)); //3글자보다 짧으면 gram 없음
+        em.flush();
+        em.clear();
+    }
+
+    private List<String> search(String name, NameMatch match) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setName(name);
+        condition.setNameMatch(match);
+        return memberRepository.search(condition).stream().map(MemberTeamDto::getName).collect(Collectors.toList());
+    }
+
+    @Test
+    public void 이름_일치_방식(){
+        assertThat(search("kim minsu", NameMatch.EXACT)).containsExactly("kim minsu");
+        assertThat(search("park", NameMatch.PREFIX)).containsExactly("park minji");
+        assertThat(search("minsu", NameMatch.CONTAINS)).containsExactlyInAnyOrder("kim minsu", "lee minsu");
+        assertThat(search("ki", NameMatch.CONTAINS)).containsExactlyInAnyOrder("kim minsu", "ki"); //짧으면 like
+        assertThat(search("usnim", NameMatch.CONTAINS)).isEmpty(); //gram 일부만 겹치는 경우
+    }
+
+    @Test
+    public void 이름이_바뀌면_gram도_바뀐다(){
+        Member member = em.find(Member.class, kim.getId());
+        member.setName("choi jiwoo");
+        em.flush();
+        em.clear();
+
+        assertThat(search("jiwoo", NameMatch.CONTAINS)).containsExactly("choi jiwoo");
+        assertThat(search("minsu", NameMatch.CONTAINS)).containsExactly("lee minsu");
+    }
+
+    @Test
+    public void 삭제되면_gram도_지워진다(){
+        em.remove(em.find(Member.class, kim.getId()));
+        em.flush();
+
+        long grams = queryFactory.selectFrom(memberNameGram).where(memberNameGram.memberId.eq(kim.getId())).fetchCount();
+        assertThat(grams).isZero();
+    }
+
+    @Test
+    public void auto_flush_뒤의_검색도_gram을_본다(){
+        em.persist(new Member("jung minsu", 50));
+
+        //flush 없이 검색 -> auto flush가 회원과 gram을 같이 보낸다.
+        assertThat(search("minsu", NameMatch.CONTAINS)).containsExactlyInAnyOrder("kim minsu", "lee minsu", "jung minsu");
+    }
+
+    @Test
+    public void 같은_flush에서_넣고_지우면_gram이_남지_않는다(){
+        Member member = new Member("han minsu", 60);
+        em.persist(member);
+        em.remove(member);
+        em.flush();
+
+        long grams = queryFactory.selectFrom(memberNameGram).where(memberNameGram.memberId.eq(member.getId())).fetchCount();
+        assertThat(grams).isZero();
+    }
+}
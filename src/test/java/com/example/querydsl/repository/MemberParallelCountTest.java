@@ -0,0 +1,200 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.cache.MemberCountCache;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * count는 다른 스레드 / 다른 커넥션에서 돌기 때문에 @Transactional 없이 커밋된 데이터로 테스트하고, 만든 데이터는 직접 지운다.
+ * 풀은 스레드 1개 + 큐 1칸이라, 스레드를 막아두면 count가 큐에서 기다리게(timeout) 하거나 풀을 꽉 채울 수 있다.
+ * */
+@SpringBootTest(properties = {
+        "member.paging.parallel-count.enabled=true",
+        "member.paging.parallel-count.timeout=300ms",
+        "member.paging.parallel-count.threads=1",
+        "member.paging.parallel-count.queue-size=1"
+})
+class MemberParallelCountTest {
+
+    static final int TOTAL = 25;
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired CountQueryExecutor countQueryExecutor;
+    @Autowired MemberCountCache memberCountCache;
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    Team parallelTeam;
+    List<Member> members = new ArrayList<>();
+    MemberSearchCondition condition = new MemberSearchCondition();
+    CountDownLatch release = new CountDownLatch(1);
+    List<Future<Long>> blockers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        parallelTeam = teamRepository.save(new Team("parallelCountTeam"));
+        for (int i = 0; i < TOTAL; i++) {
+            members.add(new Member("parallel" + i, i, parallelTeam));
+        }
+        memberRepository.saveAll(members);
+        condition.setTeamName("parallelCountTeam");
+        memberCountCache.clear();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        release.countDown();
+        drain();
+        memberRepository.deleteAllInBatch(members);
+        teamRepository.delete(parallelTeam);
+    }
+
+    @Test
+    public void count를_동시에_실행() {
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(1, 10));
+
+        assertThat(page.getContent()).hasSize(10);
+        assertThat(page.getTotalElements()).isEqualTo(TOTAL);
+        assertThat(((CountAwarePage<MemberTeamDto>) page).isTotalKnown()).isTrue();
+    }
+
+    @Test
+    public void timeout이면_total을_모르는_페이지() {
+        blockWorker(); //count는 큐에서 기다리다 timeout
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(1, 10));
+
+        assertThat(page.getContent()).hasSize(10);
+        assertThat(((CountAwarePage<MemberTeamDto>) page).isTotalKnown()).isFalse();
+        assertThat(page.getTotalElements()).isEqualTo(21); //하한값 : offset 10 + 10건 + 1
+    }
+
+    @Test
+    public void 풀이_꽉_차면_기다리지_않고_total을_모르는_페이지() {
+        blockWorker();
+        blockWorker(); //큐 1칸도 채운다.
+        assertThat(countQueryExecutor.submit(() -> 0L)).isNull();
+
+        long start = System.nanoTime();
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(1, 10));
+
+        assertThat(((CountAwarePage<MemberTeamDto>) page).isTotalKnown()).isFalse();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(300); //timeout까지 기다리지 않는다.
+    }
+
+    @Test
+    public void 첫_페이지나_마지막_페이지면_count를_취소() throws Exception {
+        blockWorker(); //count가 실행되지 못하게 막아둔다.
+
+        Page<MemberTeamDto> first = memberRepository.searchPageComplex(condition, PageRequest.of(0, 30));
+        Page<MemberTeamDto> last = memberRepository.searchPageComplex(condition, PageRequest.of(2, 10));
+
+        //count를 기다렸다면 timeout으로 total을 몰랐을 것
+        assertThat(first.getTotalElements()).isEqualTo(TOTAL);
+        assertThat(last.getTotalElements()).isEqualTo(TOTAL);
+        assertThat(((CountAwarePage<MemberTeamDto>) last).isTotalKnown()).isTrue();
+
+        release.countDown();
+        drain();
+        assertThat(memberCountCache.getTotalIfPresent(condition)).isNull(); //취소된 count는 실행되지 않았다.
+    }
+
+    @Test
+    public void 캐시된_total은_count_없이() {
+        memberRepository.searchPageComplex(condition, PageRequest.of(1, 10)); //count 결과가 캐시된다.
+        assertThat(memberCountCache.getTotalIfPresent(condition)).isEqualTo((long) TOTAL);
+        blockWorker(); //이제 count를 보내면 timeout
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(1, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(TOTAL);
+        assertThat(((CountAwarePage<MemberTeamDto>) page).isTotalKnown()).isTrue();
+    }
+
+    @Test
+    public void 다른_커넥션의_count에는_커밋_안된_변경이_안보인다() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            Team attached = em.find(Team.class, parallelTeam.getId());
+            for (int i = 0; i < 5; i++) {
+                em.persist(new Member("uncommitted" + i, i, attached));
+            }
+            em.flush();
+
+            //READ_COMMITTED 별도 트랜잭션 : 아직 커밋 안된 5건은 안보인다.
+            Long otherConnection = await(countQueryExecutor.submit(() -> queryFactory
+                    .select(member.count())
+                    .from(member)
+                    .join(member.team(), team)
+                    .where(team.name.eq("parallelCountTeam"))
+                    .fetchOne()));
+            assertThat(otherConnection).isEqualTo((long) TOTAL);
+
+            //그래서 변경이 있는 트랜잭션에서는 순차 실행으로 내 변경까지 센다.
+            Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(1, 10));
+            assertThat(page.getTotalElements()).isEqualTo(TOTAL + 5);
+
+            status.setRollbackOnly();
+        });
+    }
+
+    private void blockWorker() {
+        Future<Long> blocker = countQueryExecutor.submit(() -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 0L;
+        });
+        assertThat(blocker).isNotNull();
+        blockers.add(blocker);
+    }
+
+    /**
+     * 막아둔 작업과 큐에 남은 작업이 다 끝날때까지 기다린다. (스레드 1개라 뒤에 넣은 작업이 끝나면 앞의 것도 끝났다)
+     * */
+    private void drain() throws Exception {
+        for (Future<Long> blocker : blockers) {
+            blocker.get(10, TimeUnit.SECONDS);
+        }
+        Future<Long> sentinel;
+        while ((sentinel = countQueryExecutor.submit(() -> 0L)) == null) {
+            Thread.sleep(5);
+        }
+        sentinel.get(10, TimeUnit.SECONDS);
+    }
+
+    private static Long await(Future<Long> future) {
+        try {
+            return future.get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
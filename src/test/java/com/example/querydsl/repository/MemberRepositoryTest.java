@@ -1,9 +1,14 @@
 package com.example.querydsl.repository;
 
+import com.example.querydsl.cache.MemberCountCache;
 import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberSlice;
+import com.example.querydsl.dto.MemberSortKey;
 import com.example.querydsl.dto.MemberTeamDto;
 import com.example.querydsl.entity.Member;
 import com.example.querydsl.entity.Team;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -14,8 +19,10 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 @Transactional
@@ -28,6 +35,9 @@ class MemberRepositoryTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    MemberCountCache memberCountCache;
+
     @Test
     public void basicTest(){
         Member member = new Member("member1", 10);
@@ -104,4 +114,135 @@ class MemberRepositoryTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void searchSlice(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 40, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 20, teamB);
+        Member member4 = new Member("member4", 10, teamB);
+        Member member5 = new Member("member5", 30, teamA);
+
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+        em.persist(member5);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //age, member_id 순서로 2건씩 넘겨본다.
+        MemberSlice first = memberRepository.searchSlice(condition, MemberSortKey.AGE, null, 2);
+        assertThat(names(first)).containsExactly("member4", "member2");
+        assertThat(first.isHasNext()).isTrue();
+
+        MemberSlice second = memberRepository.searchSlice(condition, MemberSortKey.AGE, first.getNextCursor(), 2);
+        assertThat(names(second)).containsExactly("member3", "member5");
+
+        MemberSlice last = memberRepository.searchSlice(condition, MemberSortKey.AGE, second.getNextCursor(), 2);
+        assertThat(names(last)).containsExactly("member1");
+        assertThat(last.isHasNext()).isFalse();
+        assertThat(last.getNextCursor()).isNull();
+
+        //조건도 그대로 적용된다.
+        condition.setTeamName("teamA");
+        MemberSlice teamA1 = memberRepository.searchSlice(condition, MemberSortKey.ID, null, 2);
+        MemberSlice teamA2 = memberRepository.searchSlice(condition, MemberSortKey.ID, teamA1.getNextCursor(), 2);
+        assertThat(names(teamA1)).containsExactly("member1", "member2");
+        assertThat(names(teamA2)).containsExactly("member5");
+    }
+
+    @Test
+    public void searchSliceSize(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        assertThatThrownBy(() -> memberRepository.searchSlice(condition, MemberSortKey.ID, null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> memberRepository.searchSlice(condition, MemberSortKey.ID, null, Integer.MAX_VALUE))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<String> names(MemberSlice slice){
+        return slice.getContent().stream().map(MemberTeamDto::getName).collect(Collectors.toList());
+    }
+
+    @Test
+    public void searchPageComplexCountQuery(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 1; i <= 5; i++) {
+            em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamB : teamA));
+        }
+        em.flush();
+        em.clear();
+        memberCountCache.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //첫 페이지가 페이지 사이즈보다 작으면 count 생략 -> content 쿼리 1번
+        statistics.clear();
+        Page<MemberTeamDto> onlyPage = memberRepository.searchPageComplex(condition, PageRequest.of(0, 10));
+        assertThat(onlyPage.getTotalElements()).isEqualTo(5);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        //중간 페이지 -> content + count 2번, count는 team 조인 없이
+        statistics.clear();
+        Page<MemberTeamDto> firstPage = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+        assertThat(firstPage.getTotalElements()).isEqualTo(5);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getQueries())
+                .filteredOn(query -> query.startsWith("select count("))
+                .singleElement().asString().doesNotContain("join");
+
+        //같은 조건 다음 페이지 -> total은 캐시에서, content 쿼리 1번
+        statistics.clear();
+        Page<MemberTeamDto> secondPage = memberRepository.searchPageComplex(condition, PageRequest.of(1, 2));
+        assertThat(secondPage.getTotalElements()).isEqualTo(5);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        //마지막 페이지(1건) -> offset + content 사이즈로 total 계산, content 쿼리 1번
+        statistics.clear();
+        Page<MemberTeamDto> lastPage = memberRepository.searchPageComplex(condition, PageRequest.of(2, 2));
+        assertThat(lastPage.getContent()).hasSize(1);
+        assertThat(lastPage.getTotalElements()).isEqualTo(5);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        //team 조건이 있으면 count에도 조인이 붙는다. 빈 문자열 이름은 조건 없음과 같은 캐시 키.
+        condition.setTeamName("teamA");
+        condition.setName(" ");
+        statistics.clear();
+        Page<MemberTeamDto> teamAPage = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+        assertThat(teamAPage.getTotalElements()).isEqualTo(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getQueries())
+                .filteredOn(query -> query.startsWith("select count("))
+                .singleElement().asString().contains("join");
+    }
+
+    @Test
+    public void countAwarePage(){
+        //count가 시간 안에 안오면 content 크기로 하한값만 알려준다.
+        List<MemberTeamDto> content = List.of(
+                new MemberTeamDto(1L, "member1", 10, null, null),
+                new MemberTeamDto(2L, "member2", 20, null, null));
+
+        CountAwarePage<MemberTeamDto> unknown = CountAwarePage.unknown(content, PageRequest.of(3, 2));
+        assertThat(unknown.isTotalKnown()).isFalse();
+        assertThat(unknown.getTotalElements()).isEqualTo(3 * 2 + 2 + 1);
+        assertThat(unknown.hasNext()).isTrue();
+
+        CountAwarePage<MemberTeamDto> known = CountAwarePage.known(content, PageRequest.of(0, 2), 10);
+        assertThat(known.isTotalKnown()).isTrue();
+        assertThat(known.getTotalPages()).isEqualTo(5);
+    }
+
+}
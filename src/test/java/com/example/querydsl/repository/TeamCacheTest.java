@@ -0,0 +1,78 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.config.SecondLevelCacheConfig;
+import com.example.querydsl.entity.Team;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * READ_WRITE 캐시는 같은 트랜잭션 안에서 넣은 항목을 그 트랜잭션에서 읽지 않으므로
+ * @Transactional 없이 호출마다 트랜잭션이 따로 열리게 테스트한다. (끝나고 직접 지운다)
+ * */
+@SpringBootTest
+class TeamCacheTest {
+
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+    Team team;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        team = teamRepository.save(new Team("cacheTeam"));
+        entityManagerFactory.getCache().evict(Team.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        teamRepository.deleteById(team.getId());
+    }
+
+    @Test
+    public void teamIsCached() {
+        long hits = statistics.getDomainDataRegionStatistics(SecondLevelCacheConfig.TEAM_REGION).getHitCount();
+
+        teamRepository.findById(team.getId()); //DB -> 캐시
+        Team cached = teamRepository.findById(team.getId()).get(); //캐시
+
+        assertThat(cached.getName()).isEqualTo("cacheTeam");
+        assertThat(statistics.getDomainDataRegionStatistics(SecondLevelCacheConfig.TEAM_REGION).getHitCount())
+                .isEqualTo(hits + 1);
+    }
+
+    @Test
+    public void findByNameIsCached() {
+        long hits = statistics.getQueryRegionStatistics(SecondLevelCacheConfig.TEAM_BY_NAME_REGION).getHitCount();
+
+        teamRepository.findByName("cacheTeam");
+        assertThat(teamRepository.findByName("cacheTeam")).extracting("id").containsExactly(team.getId());
+
+        assertThat(statistics.getQueryRegionStatistics(SecondLevelCacheConfig.TEAM_BY_NAME_REGION).getHitCount())
+                .isEqualTo(hits + 1);
+    }
+
+    @Test
+    public void bulkUpdateEvictsRegion() {
+        teamRepository.findById(team.getId());
+        teamRepository.findByName("cacheTeam");
+
+        teamRepository.rename(team.getId(), "renamed");
+
+        //캐시에 남은 옛 이름이 아니라 DB 값을 읽어야 한다.
+        assertThat(teamRepository.findById(team.getId()).get().getName()).isEqualTo("renamed");
+        assertThat(teamRepository.findByName("cacheTeam")).isEmpty();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.querydsl.seed;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberSeedPropertiesTest {
+
+    @Test
+    public void 기본값은_통과() {
+        assertThatCode(() -> new MemberSeedProperties().validate()).doesNotThrowAnyException();
+    }
+
+    @Test
+    public void commitSize_batchSize_threads는_양수() {
+        MemberSeedProperties commitSize = new MemberSeedProperties();
+        commitSize.setCommitSize(0);
+        assertThatThrownBy(commitSize::validate).isInstanceOf(IllegalArgumentException.class);
+
+        MemberSeedProperties batchSize = new MemberSeedProperties();
+        batchSize.setBatchSize(0);
+        assertThatThrownBy(batchSize::validate).isInstanceOf(IllegalArgumentException.class);
+
+        MemberSeedProperties threads = new MemberSeedProperties();
+        threads.setThreads(0);
+        assertThatThrownBy(threads::validate).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void 나이_범위() {
+        MemberSeedProperties properties = new MemberSeedProperties();
+        properties.setAgeMin(50);
+        properties.setAgeMax(10);
+        assertThatThrownBy(properties::validate).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.querydsl.sql;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.servlet.FilterChain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NPlusOneDetectionFilterTest {
+
+    static final String LAZY_SELECT = "select team0_.team_id as team_id1_2_0_ from team team0_ where team0_.team_id=?";
+
+    NPlusOneDetector detector = new NPlusOneDetector("reject", 3);
+    NPlusOneDetectionFilter filter = new NPlusOneDetectionFilter(detector);
+
+    @Test
+    public void reject는_응답을_버리고_500() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/v1/members"), response, writing(3));
+
+        assertThat(response.getStatus()).isEqualTo(500);
+        assertThat(response.getErrorMessage()).isEqualTo(NPlusOneQueryException.REASON);
+        assertThat(response.getContentAsString()).isEmpty();
+    }
+
+    @Test
+    public void 기준_미만이면_그대로_응답() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/v1/members"), response, writing(2));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo("[]");
+    }
+
+    @Test
+    public void 트랜잭션_범위는_커밋_직전에_실패() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            for (int i = 0; i < 3; i++) {
+                detector.onStatement(LAZY_SELECT); //SQL 실행 중에는 던지지 않는다.
+            }
+            assertThatThrownBy(() -> TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.beforeCommit(true)))
+                    .isInstanceOf(NPlusOneQueryException.class);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /** 같은 select를 n번 실행하고 본문을 쓰는 컨트롤러 흉내 */
+    private FilterChain writing(int selects) {
+        return (request, response) -> {
+            for (int i = 0; i < selects; i++) {
+                detector.onStatement(LAZY_SELECT);
+            }
+            response.setContentType("application/json");
+            response.getWriter().write("[]");
+            response.flushBuffer();
+        };
+    }
+}
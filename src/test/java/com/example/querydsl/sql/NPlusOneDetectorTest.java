@@ -0,0 +1,63 @@
+package com.example.querydsl.sql;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.repository.MemberJPARepository;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"member.n-plus-one.mode=fail", "member.n-plus-one.threshold=3"})
+@Transactional
+class NPlusOneDetectorTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired MemberJPARepository memberJPARepository;
+    @Autowired JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before(){
+        for (int i = 0; i < 5; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i, i, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void 지연로딩_N플러스1(){
+        List<Member> members = memberJPARepository.findAll_Querydsl();
+
+        //팀이 다 달라서 member마다 team select가 한번씩 나간다.
+        assertThatThrownBy(() -> members.forEach(m -> m.getTeam().getName()))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("N+1 query detected")
+                .hasMessageContaining("NPlusOneDetectorTest"); //호출 지점
+    }
+
+    @Test
+    public void 페치조인은_통과(){
+        List<Member> members = queryFactory
+                .selectFrom(member)
+                .join(member.team(), team).fetchJoin()
+                .fetch();
+
+        assertThatCode(() -> members.forEach(m -> m.getTeam().getName())).doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.querydsl.sql;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(OutputCaptureExtension.class)
+class SqlLogListenerTest {
+
+    @Test
+    public void 모양별_샘플링(CapturedOutput output) throws InterruptedException {
+        SqlLogListener listener = new SqlLogListener(3, false, 100, 100);
+        for (int i = 0; i < 7; i++) {
+            listener.onStatement("select * from members where member_id=?");
+        }
+        listener.onStatement("select * from team");
+        listener.destroy(); //큐에 남은 것까지 쓰고 끝난다.
+
+        assertThat(output.getOut())
+                .contains("[#1] select * from members")
+                .contains("[#3] select * from members")
+                .contains("[#6] select * from members")
+                .doesNotContain("[#2]")
+                .doesNotContain("[#7]")
+                .contains("[#1] select * from team");
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.querydsl.stats;
+
+import com.example.querydsl.dto.TeamStatsDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.repository.MemberRepository;
+import com.example.querydsl.repository.TeamRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 커밋 후에 반영되는지 봐야 해서 @Transactional 없이 테스트한다. (끝나고 직접 지운다)
+ * 주기적 재집계는 끄고, 기동 / bulk 삭제로 예약된 재집계가 끝난 뒤에 직접 reconcile()을 부른다.
+ * */
+@SpringBootTest(properties = "member.team-stats.reconcile-interval=PT24H")
+class TeamStatsTest {
+
+    @Autowired
+    TeamStats teamStats;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+    Team team;
+    Member member1;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        teamStats.awaitReconcile();
+        teamStats.reconcile();
+        team = teamRepository.save(new Team("statsTeam"));
+        member1 = memberRepository.save(new Member("stats1", 10, team));
+        memberRepository.save(new Member("stats2", 20, team));
+        memberRepository.save(new Member("stats3", 30, team));
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.team.id = :teamId or m.name like 'stats%'")
+                    .setParameter("teamId", team.getId())
+                    .executeUpdate();
+            em.createQuery("delete from Team t where t.id = :teamId or t.name like 'stats%'")
+                    .setParameter("teamId", team.getId())
+                    .executeUpdate();
+        });
+    }
+
+    @Test
+    public void 저장한만큼_집계() {
+        TeamStatsDto stats = stats();
+
+        assertThat(stats.getTeamName()).isEqualTo("statsTeam");
+        assertThat(stats.getCount()).isEqualTo(3);
+        assertThat(stats.getSum()).isEqualTo(60);
+        assertThat(stats.getAvg()).isEqualTo(20);
+        assertThat(stats.getMax()).isEqualTo(30);
+        assertThat(stats.getMin()).isEqualTo(10);
+    }
+
+    @Test
+    public void 수정_삭제_롤백() {
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, member1.getId()).setAge(50));
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("select m from Member m where m.name = 'stats3'", Member.class).getSingleResult().setTeam(null);
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("statsRolledBack", 90, em.find(Team.class, team.getId())));
+            status.setRollbackOnly();
+        });
+
+        TeamStatsDto stats = stats();
+        assertThat(stats.getCount()).isEqualTo(2);
+        assertThat(stats.getSum()).isEqualTo(70);
+        assertThat(stats.getMax()).isEqualTo(50);
+        assertThat(stats.getMin()).isEqualTo(20);
+
+        memberRepository.deleteById(member1.getId());
+        assertThat(stats().getCount()).isEqualTo(1);
+        assertThat(stats().getMax()).isEqualTo(20);
+    }
+
+    @Test
+    public void 재집계하면_bulk_변경도_맞춰진다() throws Exception {
+        transactionTemplate.executeWithoutResult(status ->
+                em.createQuery("update Member m set m.age = m.age + 1 where m.team.id = :teamId")
+                        .setParameter("teamId", team.getId())
+                        .executeUpdate());
+        teamStats.awaitReconcile(); //bulk 커밋으로 예약된 재집계
+
+        TeamStatsDto stats = stats();
+        assertThat(stats.getSum()).isEqualTo(63);
+        assertThat(stats.getMin()).isEqualTo(11);
+    }
+
+    @Test
+    public void 회원이_없던_팀에_들어온_회원도_팀_이름이_붙는다() {
+        Team emptyTeam = teamRepository.save(new Team("statsEmptyTeam"));
+        teamStats.reconcile();
+
+        memberRepository.save(new Member("stats4", 40, emptyTeam)); //준영속 팀
+
+        TeamStatsDto stats = stats(emptyTeam);
+        assertThat(stats.getTeamName()).isEqualTo("statsEmptyTeam");
+        assertThat(stats.getCount()).isEqualTo(1);
+    }
+
+    private TeamStatsDto stats() {
+        return stats(team);
+    }
+
+    private TeamStatsDto stats(Team team) {
+        return teamStats.stats().stream()
+                .filter(dto -> dto.getTeamId().equals(team.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+}